@@ -8,10 +8,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
@@ -27,6 +30,13 @@ public class App
     private final Player whitePlayer;
     private final Player blackPlayer;
     private int hashSize = TranspositionTable.DEFAULT_HASH_SIZE_IN_MB;
+    private int threads = 1;   // used by go perft
+
+    // forward pruning margins for AlphaBetaPlayerWithTT, so they can be tuned from a GUI without a rebuild
+    private int reverseFutilityMargin = AlphaBetaPlayerWithTT.DEFAULT_REVERSE_FUTILITY_MARGIN;
+    private int razoringMargin = AlphaBetaPlayerWithTT.DEFAULT_RAZORING_MARGIN;
+    private int futilityMargin = AlphaBetaPlayerWithTT.DEFAULT_FUTILITY_MARGIN;
+    private int lateMovePruningCount = AlphaBetaPlayerWithTT.DEFAULT_LATE_MOVE_PRUNING_COUNT;
 
     /*
      * To run this from the command line:
@@ -55,6 +65,15 @@ public class App
             System.exit(0);
         }
 
+        if(aa.perftSuite != null)
+            System.exit(runPerftSuite(aa));
+
+        if(aa.perftWorkerPort != null)
+            System.exit(runPerftWorker(aa));
+
+        if(aa.perftWorkers != null)
+            System.exit(runDistributedPerft(aa));
+
         logger.atDebug().log("Configuration: ");
         logger.atDebug().log("- white player type: " + aa.whiteStrategy);
         logger.atDebug().log("- white player search depth: " + aa.whiteDepth);
@@ -73,6 +92,57 @@ public class App
         }
     }
 
+    // exit status: 0 when every check passes, 1 when any fails and 2 when the suite can't be read, parsed or written
+    static int runPerftSuite(AppArgs aa) {
+        try {
+            PerftSuite suite = new PerftSuite(aa.perftDepth, aa.perftThreads);
+            PerftSuite.Summary summary = suite.run(Path.of(aa.perftSuite), System.out);
+
+            if(aa.perftJson != null)
+                suite.writeJson(Path.of(aa.perftJson), summary);
+
+            return summary.failures() == 0 ? 0 : 1;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            logger.atError().log("perft suite {}: {}", aa.perftSuite, e.toString());
+            return 2;
+        }
+    }
+
+    // runs until the process is killed
+    static int runPerftWorker(AppArgs aa) {
+        try (PerftWorker worker = new PerftWorker(aa.perftWorkerPort, aa.perftThreads, aa.perftHash > 0 ? new PerftTable(aa.perftHash) : null)) {
+            System.out.println("perft worker listening on port " + worker.getPort());
+            worker.serve();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.atError().log("perft worker on port {}: {}", aa.perftWorkerPort, e.toString());
+            return 2;
+        }
+    }
+
+    static int runDistributedPerft(AppArgs aa) {
+        try {
+            DistributedPerft perft = new DistributedPerft(DistributedPerft.parseWorkers(aa.perftWorkers), aa.perftSplit,
+                aa.perftCheckpoint != null ? Path.of(aa.perftCheckpoint) : null);
+            Game game = new Game(aa.perftFen);
+
+            long startTime = System.nanoTime();
+            SortedMap<String, Long> actual = perft.perftAtRoot(game, aa.perftDepth);
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            long perftCount = actual.values().stream().reduce(0L, Long::sum);
+
+            actual.forEach((move, count) -> System.out.println(move + ": " + count));
+            System.out.println();
+            System.out.println("Nodes searched: " + perftCount);
+            System.out.printf("%d ms, %d nodes/second%n", millis, perftCount * 1000L / millis);
+
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.atError().log("distributed perft: {}", e.toString());
+            return 2;
+        }
+    }
+
     public App(AppArgs aa) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
         // Evaluator evaluator = new SimpleEvaluator();
         Class<?> evaluatorClass = Class.forName("com.stateofflux.chess.model.player." + aa.evaluatorStrategy);
@@ -120,6 +190,11 @@ public class App
 
                     // e.g. option name Hash type spin default 64 min 1 max 65536
                     uci_logger.atInfo().log("option name Hash type spin default " + TranspositionTable.DEFAULT_HASH_SIZE_IN_MB + " min 1 max " + getFreeMemoryInMB());
+                    uci_logger.atInfo().log("option name Threads type spin default 1 min 1 max " + Runtime.getRuntime().availableProcessors());
+                    uci_logger.atInfo().log("option name ReverseFutilityMargin type spin default " + AlphaBetaPlayerWithTT.DEFAULT_REVERSE_FUTILITY_MARGIN + " min 0 max 1000");
+                    uci_logger.atInfo().log("option name RazoringMargin type spin default " + AlphaBetaPlayerWithTT.DEFAULT_RAZORING_MARGIN + " min 0 max 2000");
+                    uci_logger.atInfo().log("option name FutilityMargin type spin default " + AlphaBetaPlayerWithTT.DEFAULT_FUTILITY_MARGIN + " min 0 max 1000");
+                    uci_logger.atInfo().log("option name LateMovePruningCount type spin default " + AlphaBetaPlayerWithTT.DEFAULT_LATE_MOVE_PRUNING_COUNT + " min 0 max 64");
 //                     System.out.println("option name <OPTION-NAME> value");
                     uci_logger.atInfo().log("uciok");
                 }
@@ -129,6 +204,21 @@ public class App
                     if(lineParts[2].equals("Hash")) {
                         hashSize = Integer.parseInt(lineParts[4]);
                         logger.atDebug().log("set hash size to {}", hashSize);
+                    } else if(lineParts[2].equals("Threads")) {
+                        threads = Math.max(1, Integer.parseInt(lineParts[4]));
+                        logger.atDebug().log("set threads to {}", threads);
+                    } else if(lineParts[2].equals("ReverseFutilityMargin")) {
+                        reverseFutilityMargin = Integer.parseInt(lineParts[4]);
+                        logger.atDebug().log("set reverse futility margin to {}", reverseFutilityMargin);
+                    } else if(lineParts[2].equals("RazoringMargin")) {
+                        razoringMargin = Integer.parseInt(lineParts[4]);
+                        logger.atDebug().log("set razoring margin to {}", razoringMargin);
+                    } else if(lineParts[2].equals("FutilityMargin")) {
+                        futilityMargin = Integer.parseInt(lineParts[4]);
+                        logger.atDebug().log("set futility margin to {}", futilityMargin);
+                    } else if(lineParts[2].equals("LateMovePruningCount")) {
+                        lateMovePruningCount = Integer.parseInt(lineParts[4]);
+                        logger.atDebug().log("set late move pruning count to {}", lateMovePruningCount);
                     }
                 }
                 case "register" -> uci_logger.atInfo().log("later");
@@ -137,8 +227,9 @@ public class App
                         game = new Game();
                     }
 
-                    if(lineParts.length == 3 && lineParts[1].equals("perft")) {
-                        perft(lineParts, game);
+                    // go perft <depth> [threads] - threads defaults to the Threads option
+                    if((lineParts.length == 3 || lineParts.length == 4) && lineParts[1].equals("perft")) {
+                        perft(lineParts, game, lineParts.length == 4 ? Integer.parseInt(lineParts[3]) : threads);
                     } else {
                         logger.atInfo().log("parsing the go command");
                         // go wtime 19653 btime 20000 movestogo 40
@@ -213,10 +304,12 @@ public class App
         // logger.atDebug().log(sb.toString());
     }
 
-    private static void perft(String[] lineParts, Game game) {
+    private static void perft(String[] lineParts, Game game, int threads) {
         int depth = Integer.parseInt(lineParts[2]);
         long startTime = System.nanoTime();
-        SortedMap<String, Long> actual = game.perftAtRoot(depth);
+        SortedMap<String, Long> actual = threads > 1 ?
+            new ParallelPerft(threads).perftAtRoot(game, depth) :
+            game.perftAtRoot(depth);
         long endTime = System.nanoTime();
         game.printPerft(actual);
         long perftCount = actual.values()
@@ -229,9 +322,9 @@ public class App
         else
             nodesPerSecond = 0;
 
-        logger.atDebug().log("ran for {} ms and reviewed {} nodes.  {} nodes/second",
+        logger.atDebug().log("ran for {} ms on {} thread(s) and reviewed {} nodes.  {} nodes/second",
             TimeUnit.NANOSECONDS.toMillis(endTime - startTime),
-            perftCount, nodesPerSecond
+            threads, perftCount, nodesPerSecond
         );
     }
 
@@ -246,9 +339,21 @@ public class App
         whitePlayer.setHashInMb(hashSize);
         blackPlayer.reset();
         blackPlayer.setHashInMb(hashSize);
+        setPruningMargins(whitePlayer);
+        setPruningMargins(blackPlayer);
         return game;
     }
 
+    // the margins only mean something to the players that prune
+    private void setPruningMargins(Player player) {
+        if (player instanceof AlphaBetaPlayerWithTT searcher) {
+            searcher.setReverseFutilityMargin(reverseFutilityMargin);
+            searcher.setRazoringMargin(razoringMargin);
+            searcher.setFutilityMargin(futilityMargin);
+            searcher.setLateMovePruningCount(lateMovePruningCount);
+        }
+    }
+
     @SuppressFBWarnings("DM_GC")
     private int getFreeMemoryInMB() {
         Runtime rt = Runtime.getRuntime();
@@ -1,6 +1,7 @@
 package com.stateofflux.chess;
 
 import com.beust.jcommander.Parameter;
+import com.stateofflux.chess.model.FenString;
 
 public class AppArgs {
     @Parameter(names={"--white-player", "-w"}, order = 2)
@@ -18,6 +19,40 @@ public class AppArgs {
     @Parameter(names={"--evaluator", "-e"}, order = 6)
     public String evaluatorStrategy = "SimpleEvaluator";
 
+    // --perft-suite runs the EPD perft checks in the file and exits, instead of starting the UCI loop
+    @Parameter(names={"--perft-suite"}, order = 7)
+    public String perftSuite = null;
+
+    @Parameter(names={"--perft-depth"}, order = 8)
+    public int perftDepth = 5;
+
+    @Parameter(names={"--perft-threads"}, order = 9)
+    public int perftThreads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names={"--perft-json"}, order = 10)
+    public String perftJson = null;
+
+    // --perft-worker counts perft jobs for a --perft-distributed coordinator, listening on the given port
+    @Parameter(names={"--perft-worker"}, order = 11)
+    public Integer perftWorkerPort = null;
+
+    // --perft-distributed host:port,... splits a perft of --perft-fen to --perft-depth across the workers
+    @Parameter(names={"--perft-distributed"}, order = 12)
+    public String perftWorkers = null;
+
+    @Parameter(names={"--perft-fen"}, order = 13)
+    public String perftFen = FenString.INITIAL_BOARD;
+
+    @Parameter(names={"--perft-split"}, order = 14)
+    public int perftSplit = DistributedPerft.DEFAULT_SPLIT_DEPTH;
+
+    @Parameter(names={"--perft-checkpoint"}, order = 15)
+    public String perftCheckpoint = null;
+
+    // MB of PerftTable for a worker, 0 for none
+    @Parameter(names={"--perft-hash"}, order = 16)
+    public int perftHash = 0;
+
     @Parameter(names={"--help", "-h"}, order = 1)
     public boolean askedForHelp = false;
 }
@@ -0,0 +1,274 @@
+package com.stateofflux.chess;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.MoveBuffer;
+import com.stateofflux.chess.model.PackedMove;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Perft split across PerftWorker processes, on this machine or others.
+ *
+ *   java -jar markschess-1.0-SNAPSHOT-jar-with-dependencies.jar --perft-distributed host:port,host:port [--perft-fen FEN] [--perft-depth N]
+ *       [--perft-split N] [--perft-checkpoint FILE]
+ *
+ * The tree is cut splitDepth plies below the root.  Each position there is a job, sent to a worker as its FEN and
+ * remaining depth (see PerftWorker for the protocol).  Each worker connection takes the next job from a shared queue
+ * as soon as it has answered the last, so faster workers do more.  A job whose worker fails goes back on the queue
+ * for the others.
+ *
+ * With a checkpoint file every finished job is appended to it as it comes in, and a run with the same position,
+ * depth and split reads it back and only sends the jobs it doesn't have.  A run that loses all its workers can be
+ * restarted and picks up where it stopped.
+ *
+ * The result is the same as Game.perftAtRoot(depth): the count below each root move.
+ */
+public class DistributedPerft {
+    final static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final int DEFAULT_SPLIT_DEPTH = 1;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    private final List<InetSocketAddress> workers;
+    private final int splitDepth;
+    private final Path checkpoint;
+
+    // a position splitDepth plies below the root - path is the moves that lead to it, in long SAN
+    record Job(String path, String fen, int depth) {}
+
+    public DistributedPerft(List<InetSocketAddress> workers, int splitDepth, Path checkpoint) {
+        if (splitDepth < 1)
+            throw new IllegalArgumentException("split depth must be at least 1: " + splitDepth);
+
+        this.workers = List.copyOf(workers);
+        this.splitDepth = splitDepth;
+        this.checkpoint = checkpoint;
+    }
+
+    // host:port,host:port
+    public static List<InetSocketAddress> parseWorkers(String workers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+
+        for (String worker : workers.split(",")) {
+            int colon = worker.lastIndexOf(':');
+            if (colon < 1)
+                throw new IllegalArgumentException("expected host:port but found '" + worker + "'");
+
+            addresses.add(InetSocketAddress.createUnresolved(worker.substring(0, colon), Integer.parseInt(worker.substring(colon + 1))));
+        }
+
+        return addresses;
+    }
+
+    public SortedMap<String, Long> perftAtRoot(Game game, int depth) throws IOException {
+        if (depth <= 1)
+            return game.perftAtRoot(depth);
+
+        List<Job> jobs = new ArrayList<>();
+        split(game, "", depth, Math.min(splitDepth, depth - 1), jobs);
+
+        String header = "perft " + depth + " " + splitDepth + " " + game.asFen();
+        Map<String, Long> counts = new ConcurrentHashMap<>(readCheckpoint(header));
+
+        ConcurrentLinkedQueue<Job> queue = new ConcurrentLinkedQueue<>();
+        for (Job job : jobs) {
+            if (!counts.containsKey(job.path()))
+                queue.add(job);
+        }
+
+        logger.atInfo().log("{} jobs, {} from the checkpoint, {} to send to {} worker(s)",
+            jobs.size(), jobs.size() - queue.size(), queue.size(), workers.size());
+
+        if (!queue.isEmpty()) {
+            try (Checkpoint writer = new Checkpoint(checkpoint, header)) {
+                // a job given back by a failed worker after the others have run out of work needs another round
+                for (List<InetSocketAddress> alive = workers; !queue.isEmpty() && !alive.isEmpty(); )
+                    alive = drainAll(alive, queue, counts, writer);
+            }
+        }
+
+        if (counts.size() < jobs.size())
+            throw new IOException((jobs.size() - counts.size()) + " of " + jobs.size() +
+                " jobs were not counted - no workers left" + (checkpoint != null ? "; rerun to resume from " + checkpoint : ""));
+
+        SortedMap<String, Long> perftResults = new TreeMap<>();
+        for (Job job : jobs) {
+            String rootMove = job.path().split(" ", 2)[0];
+            perftResults.merge(rootMove, counts.get(job.path()), Long::sum);
+        }
+
+        return perftResults;
+    }
+
+    private static void split(Game game, String path, int depth, int plies, List<Job> jobs) {
+        if (plies == 0) {
+            jobs.add(new Job(path, game.asFen(), depth));
+            return;
+        }
+
+        MoveBuffer moves = new MoveBuffer();
+        game.generateMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            String next = path.isEmpty() ? PackedMove.toLongSan(move) : path + " " + PackedMove.toLongSan(move);
+
+            game.move(move);
+            split(game, next, depth - 1, plies - 1, jobs);
+            game.undo();
+        }
+    }
+
+    // one thread per worker; returns the workers that are still healthy
+    private static List<InetSocketAddress> drainAll(List<InetSocketAddress> workers, ConcurrentLinkedQueue<Job> queue,
+                                                    Map<String, Long> counts, Checkpoint writer) throws IOException {
+        List<Future<Boolean>> healthy = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(workers.size())) {
+            for (InetSocketAddress worker : workers)
+                healthy.add(pool.submit(() -> drain(worker, queue, counts, writer)));
+        }
+
+        List<InetSocketAddress> alive = new ArrayList<>();
+        for (int i = 0; i < workers.size(); i++) {
+            try {
+                if (healthy.get(i).get())
+                    alive.add(workers.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for perft workers", e);
+            } catch (ExecutionException e) {
+                throw new IOException("perft worker thread failed", e.getCause());
+            }
+        }
+
+        return alive;
+    }
+
+    // one connection to one worker, taking jobs until the queue is empty (true) or the worker fails (false)
+    private static boolean drain(InetSocketAddress worker, ConcurrentLinkedQueue<Job> queue, Map<String, Long> counts, Checkpoint writer) {
+        Job job = null;
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(worker.getHostString(), worker.getPort()), CONNECT_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+
+            while ((job = queue.poll()) != null) {
+                out.println("perft " + job.depth() + " " + job.fen());
+                String reply = in.readLine();
+
+                if (reply == null)
+                    throw new IOException("connection closed");
+                if (reply.startsWith("error"))
+                    throw new IOException(reply);
+
+                long count = Long.parseLong(reply.strip());
+                counts.put(job.path(), count);
+                writer.append(job.path(), count);
+                job = null;
+            }
+
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.atWarn().log("perft worker {} dropped: {}", worker, e.toString());
+
+            if (job != null)
+                queue.add(job);   // for the remaining workers
+
+            return false;
+        }
+    }
+
+    private Map<String, Long> readCheckpoint(String header) throws IOException {
+        Map<String, Long> counts = new TreeMap<>();
+
+        if (checkpoint == null || !Files.exists(checkpoint))
+            return counts;
+
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        if (lines.isEmpty())
+            return counts;
+
+        if (!lines.getFirst().equals(header))
+            throw new IOException("checkpoint " + checkpoint + " is for '" + lines.getFirst() + "', not '" + header + "'");
+
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(" ", 2);
+
+            try {
+                counts.put(fields[1], Long.parseLong(fields[0]));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.atWarn().log("ignoring checkpoint line '{}'", line);   // e.g. cut short by a crash
+            }
+        }
+
+        return counts;
+    }
+
+    /*
+     * Appends "<count> <path>" for each finished job, flushed at once so a crash loses at most the line being written.
+     */
+    private static class Checkpoint implements AutoCloseable {
+        private final BufferedWriter writer;
+
+        Checkpoint(Path file, String header) throws IOException {
+            if (file == null) {
+                writer = null;
+                return;
+            }
+
+            byte[] existing = Files.exists(file) ? Files.readAllBytes(file) : new byte[0];
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            if (existing.length == 0) {
+                writer.write(header);
+                writer.newLine();
+            } else if (existing[existing.length - 1] != '\n') {
+                writer.newLine();   // end the line a crash cut short, so the next count starts a line of its own
+            }
+
+            writer.flush();
+        }
+
+        synchronized void append(String path, long count) throws IOException {
+            if (writer == null)
+                return;
+
+            writer.write(count + " " + path);
+            writer.newLine();
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null)
+                writer.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.stateofflux.chess;
+
+import com.stateofflux.chess.model.Game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Checks the move generator against an EPD perft suite (e.g. perftsuite.epd from the tests) from the command line:
+ *
+ *   java -jar markschess-1.0-SNAPSHOT-jar-with-dependencies.jar --perft-suite perftsuite.epd [--perft-depth 5] [--perft-threads N] [--perft-json out.json]
+ *
+ * Each line is a FEN followed by ";Dn count" checks.  Positions are read one line at a time and handed to a pool of
+ * threads as they are read, each position counted by one thread with its own Game.  Checks deeper than the maximum
+ * depth are skipped.  The results are printed in file order: pass or fail, the nodes counted and the time, then the
+ * totals and the aggregate nodes/second.  The JSON report uses the perft-bench.json format (github-action-benchmark
+ * customBiggerIsBetter).
+ */
+public class PerftSuite {
+    private final int maxDepth;
+    private final int threads;
+
+    public record Position(int line, String fen, SortedMap<Integer, Long> expected) {}
+
+    public record Result(Position position, long nodes, long nanos, int failedDepth, long failedExpected, long failedActual) {
+        public boolean passed() {
+            return failedDepth == 0;
+        }
+    }
+
+    public record Summary(int positions, int failures, long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nodes * 1_000_000_000L / Math.max(1, nanos);
+        }
+    }
+
+    public PerftSuite(int maxDepth, int threads) {
+        if (maxDepth < 1)
+            throw new IllegalArgumentException("max depth must be at least 1: " + maxDepth);
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+
+        this.maxDepth = maxDepth;
+        this.threads = threads;
+    }
+
+    /*
+     * Parse one EPD line, or return null for a blank line or a # comment.
+     */
+    public static Position parse(int line, String text) {
+        String stripped = text.strip();
+        if (stripped.isEmpty() || stripped.startsWith("#"))
+            return null;
+
+        String[] fields = stripped.split(";");
+        SortedMap<Integer, Long> expected = new TreeMap<>();
+
+        for (int i = 1; i < fields.length; i++) {
+            String[] check = fields[i].strip().split("\\s+");
+
+            if (check.length != 2 || !check[0].startsWith("D"))
+                throw new IllegalArgumentException("line " + line + ": expected ';Dn count' but found '" + fields[i].strip() + "'");
+
+            expected.put(Integer.parseInt(check[0].substring(1)), Long.parseLong(check[1]));
+        }
+
+        return new Position(line, fields[0].strip(), expected);
+    }
+
+    public Summary run(Path epd, PrintStream out) throws IOException {
+        List<Future<Result>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads);
+             BufferedReader reader = Files.newBufferedReader(epd, StandardCharsets.UTF_8)) {
+            int line = 0;
+
+            for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+                Position position = parse(++line, text);
+
+                if (position != null)
+                    results.add(pool.submit(() -> check(position)));
+            }
+
+            int failures = 0;
+            long nodes = 0;
+
+            for (Future<Result> future : results) {
+                Result result = get(future);
+                nodes += result.nodes();
+
+                if (!result.passed())
+                    failures++;
+
+                print(out, result);
+            }
+
+            Summary summary = new Summary(results.size(), failures, nodes, System.nanoTime() - start);
+            out.printf("%d positions, %d failed, %d nodes in %d ms on %d thread(s): %d nodes/second%n",
+                summary.positions(), summary.failures(), summary.nodes(), TimeUnit.NANOSECONDS.toMillis(summary.nanos()),
+                threads, summary.nodesPerSecond());
+
+            return summary;
+        }
+    }
+
+    public Result check(Position position) {
+        Game game = new Game(position.fen());
+        long nodes = 0;
+        long start = System.nanoTime();
+
+        for (var entry : position.expected().entrySet()) {
+            int depth = entry.getKey();
+            if (depth > maxDepth)
+                break;
+
+            long actual = game.perft(depth);
+            nodes += actual;
+
+            if (actual != entry.getValue())
+                return new Result(position, nodes, System.nanoTime() - start, depth, entry.getValue(), actual);
+        }
+
+        return new Result(position, nodes, System.nanoTime() - start, 0, 0, 0);
+    }
+
+    public void writeJson(Path json, Summary summary) throws IOException {
+        if (json.getParent() != null)
+            Files.createDirectories(json.getParent());
+
+        Files.writeString(json, String.format(
+            "[%n  {\"name\": \"perft suite d%d\", \"unit\": \"nodes/sec\", \"value\": %d}%n]%n", maxDepth, summary.nodesPerSecond()));
+    }
+
+    private static Result get(Future<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for perft results", e);
+        } catch (ExecutionException e) {
+            throw new IOException("perft failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void print(PrintStream out, Result result) {
+        Position position = result.position();
+
+        if (result.passed())
+            out.printf("ok    %4d %14d nodes %8d ms  %s%n",
+                position.line(), result.nodes(), TimeUnit.NANOSECONDS.toMillis(result.nanos()), position.fen());
+        else
+            out.printf("FAIL  %4d D%d expected %d, got %d  %s%n",
+                position.line(), result.failedDepth(), result.failedExpected(), result.failedActual(), position.fen());
+    }
+}
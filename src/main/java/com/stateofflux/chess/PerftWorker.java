@@ -0,0 +1,119 @@
+package com.stateofflux.chess;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.ParallelPerft;
+import com.stateofflux.chess.model.PerftTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandles;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * The worker side of DistributedPerft: counts the perft jobs a coordinator sends it over TCP.
+ *
+ *   java -jar markschess-1.0-SNAPSHOT-jar-with-dependencies.jar --perft-worker 9100 [--perft-threads N] [--perft-hash MB]
+ *
+ * The protocol is one line per request and one line per reply:
+ *
+ *   perft <depth> <fen>   ->   <count>    or    error <message>
+ *
+ * Every connection gets a thread of its own, so one worker can serve several coordinators.  A job is counted with
+ * ParallelPerft when the worker has more than one thread, and through the worker's PerftTable when it has one.
+ */
+public class PerftWorker implements AutoCloseable {
+    final static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final ServerSocket serverSocket;
+    private final int threads;
+    private final PerftTable table;
+
+    // port 0 picks a free port - see getPort()
+    public PerftWorker(int port, int threads, PerftTable table) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+
+        this.serverSocket = new ServerSocket(port);
+        this.threads = threads;
+        this.table = table;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /*
+     * Accept connections until the worker is closed.
+     */
+    public void serve() {
+        logger.atInfo().log("perft worker listening on port {} with {} thread(s)", getPort(), threads);
+
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> handle(socket), "perft-worker-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            } catch (SocketException e) {
+                break;   // closed while waiting in accept()
+            } catch (IOException e) {
+                logger.atWarn().log("perft worker accept failed: {}", e.toString());
+            }
+        }
+    }
+
+    // serve() on a daemon thread, for running workers inside another process (e.g. a test)
+    public void start() {
+        Thread server = new Thread(this::serve, "perft-worker-" + getPort());
+        server.setDaemon(true);
+        server.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                out.println(reply(line));
+            }
+        } catch (IOException e) {
+            logger.atWarn().log("perft worker connection from {} failed: {}", socket.getRemoteSocketAddress(), e.toString());
+        }
+    }
+
+    String reply(String request) {
+        String[] parts = request.strip().split("\\s+", 3);
+
+        if (parts.length != 3 || !parts[0].equals("perft"))
+            return "error expected 'perft <depth> <fen>' but found '" + request + "'";
+
+        try {
+            int depth = Integer.parseInt(parts[1]);
+            if (depth < 1)
+                return "error depth must be at least 1: " + depth;
+
+            Game game = new Game(parts[2]);
+            game.setPerftTable(table);
+
+            long count = threads > 1 ? new ParallelPerft(threads).perft(game, depth) : game.perft(depth);
+            logger.atDebug().log("perft {} {}: {}", depth, parts[2], count);
+
+            return Long.toString(count);
+        } catch (RuntimeException e) {
+            return "error " + e;
+        }
+    }
+}
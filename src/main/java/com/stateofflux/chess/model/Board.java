@@ -28,6 +28,11 @@ public class Board {
     public static final long FILE_B = 0x202020202020202L;
     public static final long FILE_A = 0x101010101010101L;
 
+    // the kinds of move legalMoves() generates: quiet moves, or noisy moves (captures and promotions), or both
+    public static final int QUIET_MOVES = 1;
+    public static final int NOISY_MOVES = 2;
+    public static final int ALL_MOVES = QUIET_MOVES | NOISY_MOVES;
+
     private final ZobristHasher zobristHasher;
     private long[] boards;
 
@@ -37,7 +42,33 @@ public class Board {
     private long whiteBoard;
     private long blackBoardWithoutKing;
     private long whiteBoardWithoutKing;
-    private Piece[] pieceCache;
+
+    // the square -> piece index mailbox (Piece.EMPTY's index for an empty square), kept in step with the piece boards
+    private byte[] mailbox;
+    private static final byte EMPTY_SQUARE = (byte) Piece.EMPTY.getIndex();
+
+    // attack maps, computed on first use for each side and discarded whenever a piece is placed or removed
+    private final long[] pieceAttacks = new long[Piece.SIZE];
+    private final long[] sideAttacks = new long[2];
+    private int attackMapsValid;   // bit 0: white's maps, bit 1: black's maps
+
+    // static exchange evaluation: the MVV-LVA piece values by piece index, and the swap list see() reuses
+    private static final int MAX_EXCHANGE = 32;
+    private static final int BLACK_PIECES = Piece.BLACK_KING.getIndex();   // the first black piece index
+    private static final int[] KING_INDEX = { Piece.WHITE_KING.getIndex(), Piece.BLACK_KING.getIndex() };
+    private static final int[] SEE_VALUES = new int[Piece.SIZE];
+    private static final boolean[] DIAGONAL_XRAYS = new boolean[Piece.SIZE];   // pawns, bishops and queens
+    private static final boolean[] STRAIGHT_XRAYS = new boolean[Piece.SIZE];   // rooks and queens
+    private final int[] seeGain = new int[MAX_EXCHANGE + 1];
+
+    static {
+        for (Piece piece : Piece.values()) {
+            SEE_VALUES[piece.getIndex()] = MvvLvaMoveComparator.pieceToValue(piece);
+            char kind = piece.getAlgebraicChar();
+            DIAGONAL_XRAYS[piece.getIndex()] = kind == Piece.PAWN_ALGEBRAIC || kind == Piece.BISHOP_ALGEBRAIC || kind == Piece.QUEEN_ALGEBRAIC;
+            STRAIGHT_XRAYS[piece.getIndex()] = kind == Piece.ROOK_ALGEBRAIC || kind == Piece.QUEEN_ALGEBRAIC;
+        }
+    }
 
     // instance vars
     protected int castlingRights;
@@ -59,11 +90,11 @@ public class Board {
      */
     public Board() {
         boards = new long[Piece.SIZE];
-        pieceCache = new Piece[64];
+        mailbox = new byte[64];
         zobristHasher = new ZobristHasher();
 
         setDefaultCastlingRights();
-        clearPieceCache();  // initialize all space to Piece.EMPTY
+        clearMailbox();  // initialize all space to Piece.EMPTY
 
         setByBoard(Piece.WHITE_KING,   4);
         setByBoard(Piece.WHITE_QUEEN,  3);
@@ -99,8 +130,6 @@ public class Board {
         setByBoard(Piece.BLACK_PAWN,   54);
         setByBoard(Piece.BLACK_PAWN,   55);
 
-        calculateAllCacheBoards();
-
         enPassantTarget = PawnMoves.NO_EN_PASSANT_VALUE;  // set to -1 and don't update zobrist key.  May be better to have a non 0 value (64) so that it is always set and unset?
     }
 
@@ -109,13 +138,40 @@ public class Board {
      */
     public Board(String fen) {
         boards = new long[Piece.SIZE];
-        pieceCache = new Piece[64];
+        mailbox = new byte[64];
         zobristHasher = new ZobristHasher();
 
         enPassantTarget = PawnMoves.NO_EN_PASSANT_VALUE;
+        clearMailbox();
         this.populate(fen);
-        populatePieceCache();
-        calculateAllCacheBoards();
+    }
+
+    // an independent copy - see copy()
+    private Board(Board other) {
+        boards = other.boards.clone();
+        mailbox = other.mailbox.clone();
+        zobristHasher = new ZobristHasher();
+        zobristHasher.forceKey(other.getZobristKey());
+
+        occupiedBoard = other.occupiedBoard;
+        blackBoard = other.blackBoard;
+        whiteBoard = other.whiteBoard;
+        blackBoardWithoutKing = other.blackBoardWithoutKing;
+        whiteBoardWithoutKing = other.whiteBoardWithoutKing;
+
+        System.arraycopy(other.pieceAttacks, 0, pieceAttacks, 0, pieceAttacks.length);
+        System.arraycopy(other.sideAttacks, 0, sideAttacks, 0, sideAttacks.length);
+        attackMapsValid = other.attackMapsValid;
+
+        castlingRights = other.castlingRights;
+        enPassantTarget = other.enPassantTarget;
+    }
+
+    /*
+     * The same position, zobrist key and cached aggregates, in arrays of its own - nothing is parsed or recalculated.
+     */
+    public Board copy() {
+        return new Board(this);
     }
 
     // --------------------------- Static Methods ---------------------------
@@ -127,16 +183,17 @@ public class Board {
         return location & 0x7;  // modulo 8
     }
 
-    /** returns locations from 0-63 **/
+    /**
+     * returns locations from 0-63.  This allocates, so move generation walks the bitboard directly instead:
+     * {@code for (long b = board; b != 0; b &= b - 1) { int square = Long.numberOfTrailingZeros(b); ... }}
+     **/
     public static int[] bitboardToArray(long l) {
         int bitsSet = Long.bitCount(l);
         int[] result = new int[bitsSet];
         int counter = 0;
 
-        for (int i = 0; i < 64 && counter < bitsSet; i++) {
-            if ((l & (1L << i)) != 0) {
-                result[counter++] = i;
-            }
+        for (; l != 0; l &= l - 1) {
+            result[counter++] = Long.numberOfTrailingZeros(l);
         }
 
         return result;
@@ -184,7 +241,9 @@ public class Board {
 
     public void setBoards(long[] boards) {
         this.boards = Arrays.copyOf(boards, boards.length);
+        populateMailbox();
         calculateAllCacheBoards();
+        attackMapsValid = 0;
     }
 
     public long[] getBoards() {
@@ -216,42 +275,54 @@ public class Board {
         }
     }
 
+    /*
+     * Place piece on location.  The occupancy and colour aggregates are updated along with the piece board, so
+     * making and unmaking a move never rebuilds them from the twelve piece boards.
+     */
     public void setByBoard(Piece piece, int location) {
         assert location >= 0;
 
-        this.boards[piece.getIndex()] |= (1L << location);
-        zobristHasher.updatePiece(piece, location);
-        pieceCache[location] = piece;
+        long bit = 1L << location;
+
+        this.boards[piece.getIndex()] |= bit;
+        this.occupiedBoard |= bit;
+        this.attackMapsValid = 0;
+
+        if(piece.isWhite()) {
+            this.whiteBoard |= bit;
+            if(piece != Piece.WHITE_KING)
+                this.whiteBoardWithoutKing |= bit;
+        } else {
+            this.blackBoard |= bit;
+            if(piece != Piece.BLACK_KING)
+                this.blackBoardWithoutKing |= bit;
+        }
 
+        zobristHasher.updatePiece(piece, location);
+        mailbox[location] = (byte) piece.getIndex();
     }
 
     public void clearByBoard(Piece piece, int boardIndex, int location) {
         if(piece == Piece.EMPTY)
             return;
 
-        this.boards[boardIndex] &= ~(1L << location);
-        zobristHasher.updatePiece(piece, location);
-        pieceCache[location] = Piece.EMPTY;
-    }
-
-    // TODO: This is only used in one place.  Can I remove it?
-    protected void clearLocation(Piece p, int location) {
-        long bitToClear = 1L << location;
-        boolean cleared = false;
-        for(int i = 0; i < boards.length; i++) {
-            if((boards[i] & bitToClear) != 0) {
-                // clear the bit at the location on all boards
-                // zobristHasher.toggleZorbistMask(bitToClear);
-                boards[i] &= ~bitToClear;
-                cleared = true;
-                break;
-            }
-        }
+        long mask = ~(1L << location);
+
+        this.boards[boardIndex] &= mask;
+        this.occupiedBoard &= mask;
+        this.attackMapsValid = 0;
 
-        if(cleared) {
-            zobristHasher.updatePiece(p, location);  // xor the piece off the hash
-            pieceCache[location] = Piece.EMPTY;
+        // a square holds one piece, so clearing it from both the with and without king boards is always safe
+        if(piece.isWhite()) {
+            this.whiteBoard &= mask;
+            this.whiteBoardWithoutKing &= mask;
+        } else {
+            this.blackBoard &= mask;
+            this.blackBoardWithoutKing &= mask;
         }
+
+        zobristHasher.updatePiece(piece, location);
+        mailbox[location] = EMPTY_SQUARE;
     }
 
     public int set(char element, int location) {
@@ -273,27 +344,32 @@ public class Board {
      */
 
     public Piece get(int location) {
-        return pieceCache[location];
+        return Piece.getPieceByIndex(mailbox[location]);
+    }
+
+    /*
+     * The index of the piece on location (Piece.EMPTY's index if the square is empty), without the Piece lookup.
+     */
+    public int pieceIndexAt(int location) {
+        return mailbox[location];
     }
 
     protected int getBoardIndex(int location) {
-        for (int index = 0; index < this.boards.length; index++) {
-            if ((this.boards[index] & (1L << location)) != 0)
-                return index;
-        }
+        int index = mailbox[location];
 
-        throw new AssertionError("Location not found: " + location);
+        if (index == EMPTY_SQUARE)
+            throw new AssertionError("Location not found: " + location);
+
+        return index;
     }
 
     protected int getBoardIndex(int location, PlayerColor pc) {
-        int[] indices = pc.isWhite() ? Piece.WHITE_INDEX : Piece.BLACK_INDEX;
+        int index = getBoardIndex(location);
 
-        for (int index = 0; index < indices.length; index++) {
-            if ((this.boards[indices[index]] & (1L << location)) != 0)
-                return indices[index];
-        }
+        if (Piece.getPieceByIndex(index).getColor() != pc)
+            throw new AssertionError("Location not found: " + location);
 
-        throw new AssertionError("Location not found: " + location);
+        return index;
     }
 
     public long getBlackKingBoard()   { return boards[Piece.BLACK_KING.getIndex()]; }
@@ -312,91 +388,88 @@ public class Board {
 
     /*
      * Move a piece on the board, but do not perform validation.
-     * return the removed location
+     * return the piece that was captured (Piece.EMPTY if nothing was captured)
      */
-    public int update(Move m) {
-        boolean standardMove = true;
-        int removed;
+    public Piece update(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece piece = PackedMove.piece(move);
         Piece removedPiece;
 
         // remove the piece making the move from the board
-        int fromBoardIndex = this.getBoardIndex(m.getFrom(), m.getPiece().getColor());
-        clearByBoard(m.getPiece(), fromBoardIndex, m.getFrom()); // clear
-
-        // clear the destination location
-        removed = m.getTo();
-        removedPiece = get(m.getTo());
-        if(removedPiece != Piece.EMPTY) {
-            clearByBoard(removedPiece, this.getBoardIndex(m.getTo(), removedPiece.getColor()), removed);
-            // this.clearLocation(m.getPiece(), m.getTo());  // take the destination piece off the board if it exists.  It may be on any bitboard
-        }
+        clearByBoard(piece, piece.getIndex(), from);
 
-        // if promotion
-        if(m.isPromoting()) {
-            setByBoard(m.getPromotionPiece(), m.getTo()); // set promoted piece
-            standardMove = false;
-        }
-
-        if(m.isEnPassant()) {
-            int target = m.getEnPassantTarget();
-            // TODO: I don't think this logic is right.  removed, removedPiece, and clearbyboard seem not needed in the use case I'm looking at.
-            removed = target;
-            removedPiece = get(target);
-            clearByBoard(removedPiece, removedPiece.getIndex(), removed);// clear en passant target
-            setByBoard(m.getPiece(), m.getTo()); // set new pawn location
-            standardMove = false;
+        if(PackedMove.isEnPassantCapture(move)) {
+            // remove the pawn that created the en passant scenario.
+            int removed = PackedMove.enPassantCaptureSquare(move);
+            removedPiece = get(removed);
+            clearByBoard(removedPiece, removedPiece.getIndex(), removed);
+        } else {
+            // clear the destination location
+            removedPiece = get(to);
+            clearByBoard(removedPiece, removedPiece.getIndex(), to);
         }
 
-        // remove the piece that created the en passant scenario.
-        if(m.isEnPassantCapture(getEnPassantTarget())) {
-            int target = m.getTo();
+        // the moving piece, or the promoted piece, lands on the destination
+        setByBoard(PackedMove.isPromoting(move) ? PackedMove.promotion(move) : piece, to);
 
-            int sourceFile, destFile;
-            sourceFile = Board.file(m.getFrom());
-            destFile = Board.file(target);
+        // if castling - king already moved, now move the rook
+        if(PackedMove.isCastling(move)) {
+            Piece rook = piece.isWhite() ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
 
-            // assert(sourceFile != destFile);
-            if(sourceFile < destFile)
-                removed = m.getFrom() + 1;
-            else if(sourceFile > destFile)
-                removed = m.getFrom() - 1;
+            clearByBoard(rook, rook.getIndex(), PackedMove.castlingRookFrom(move)); // clear rook location
+            setByBoard(rook, PackedMove.castlingRookTo(move)); // set rook location
+        }
 
-            removedPiece = get(removed);
-            this.clearLocation(removedPiece, removed);  // clear en passant target
+        return removedPiece;
+    }
 
-            // boardIndex doesn't change (pawn to pawn)
-            setByBoard(m.getPiece(), m.getTo()); // set new pawn location
-            standardMove = false;
-        }
+    /*
+     * Reverse update(move) exactly.  removedPiece is the piece update() returned.  The zobrist key is left to the
+     * caller, which restores the key it saved before the move.
+     */
+    public void undo(int move, Piece removedPiece) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece piece = PackedMove.piece(move);
 
-        // if castling - king already removed
-        if(m.isCastling()) {
-            setByBoard(m.getPiece(), m.getTo()); // set king location
+        // put the rook back before the king, mirroring update()
+        if(PackedMove.isCastling(move)) {
+            Piece rook = piece.isWhite() ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
 
-            Piece rook;
+            clearByBoard(rook, rook.getIndex(), PackedMove.castlingRookTo(move));
+            setByBoard(rook, PackedMove.castlingRookFrom(move));
+        }
 
-            if(m.getSecondaryFrom() == CastlingHelper.WHITE_QUEEN_SIDE_INITIAL_ROOK_LOCATION ||
-                m.getSecondaryFrom() == CastlingHelper.WHITE_KING_SIDE_INITIAL_ROOK_LOCATION)
-                rook = Piece.WHITE_ROOK;
-            else
-                rook = Piece.BLACK_ROOK;
+        // lift the moved (or promoted) piece off the destination and return the original piece to its source
+        Piece landed = get(to);
+        clearByBoard(landed, landed.getIndex(), to);
+        setByBoard(piece, from);
 
-            clearByBoard(rook, rook.getIndex(), m.getSecondaryFrom()); // clear rook location
-            setByBoard(rook, m.getSecondaryTo()); // set rook location
+        if(removedPiece != Piece.EMPTY)
+            setByBoard(removedPiece, PackedMove.isEnPassantCapture(move) ? PackedMove.enPassantCaptureSquare(move) : to);
+    }
 
-            standardMove = false;
-        }
+    /*
+     * Convert a Move built outside the generators (SAN, UCI, tests) into its packed form for this position.
+     */
+    public int packMove(Move m) {
+        int flags = 0;
+        int captured;
 
-        if(standardMove) {
-            setByBoard(m.getPiece(), m.getTo()); // set
+        if(m.isEnPassantCapture(getEnPassantTarget())) {
+            flags |= PackedMove.CAPTURE_FLAG | PackedMove.EN_PASSANT_CAPTURE_FLAG;
+            captured = (m.getPiece().isWhite() ? Piece.BLACK_PAWN : Piece.WHITE_PAWN).getIndex();
+        } else {
+            captured = get(m.getTo()).getIndex();
+            if(m.isCapture() || captured != Piece.EMPTY.getIndex())
+                flags |= PackedMove.CAPTURE_FLAG;
         }
 
-        calculateAllCacheBoards();
-
-        if(removedPiece != Piece.EMPTY)
-            m.setCapturePiece(removedPiece);
+        if(m.isCastling()) flags |= PackedMove.CASTLING_FLAG;
+        if(m.isEnPassant()) flags |= PackedMove.EN_PASSANT_PUSH_FLAG;
 
-        return removed;
+        return PackedMove.encode(m.getPiece().getIndex(), m.getFrom(), m.getTo(), captured, m.getPromotionPiece().getIndex(), flags);
     }
 
     public long getOccupied() {
@@ -418,8 +491,8 @@ public class Board {
     }
 
     private boolean blackHasOnlyOneMinorPiece() {
-        int knights = getKnightLocations(PlayerColor.BLACK).length;
-        int bishops = getBishopLocations(PlayerColor.BLACK).length;
+        int knights = Long.bitCount(getKnights(PlayerColor.BLACK));
+        int bishops = Long.bitCount(getBishops(PlayerColor.BLACK));
 
         return
             (this.boards[Piece.BLACK_PAWN.getIndex()] == 0) &&
@@ -429,7 +502,7 @@ public class Board {
     }
 
     public boolean blackHasOnlyTwoKnights() {
-        int knights = getKnightLocations(PlayerColor.BLACK).length;
+        int knights = Long.bitCount(getKnights(PlayerColor.BLACK));
 
         return
             (this.boards[Piece.BLACK_PAWN.getIndex()] == 0) &&
@@ -440,11 +513,11 @@ public class Board {
     }
 
     public boolean blackHasAllOriginalPieces() {
-        return getPawnLocations(PlayerColor.BLACK).length == 8 &&
-            getRookLocations(PlayerColor.BLACK).length == 2 &&
-            getKnightLocations(PlayerColor.BLACK).length == 2 &&
-            getBishopLocations(PlayerColor.BLACK).length == 2 &&
-            getQueenLocations(PlayerColor.BLACK).length == 1;
+        return Long.bitCount(getPawns(PlayerColor.BLACK)) == 8 &&
+            Long.bitCount(getRooks(PlayerColor.BLACK)) == 2 &&
+            Long.bitCount(getKnights(PlayerColor.BLACK)) == 2 &&
+            Long.bitCount(getBishops(PlayerColor.BLACK)) == 2 &&
+            Long.bitCount(getQueens(PlayerColor.BLACK)) == 1;
     }
 
     public boolean hasWhiteKingOnly() {
@@ -452,8 +525,8 @@ public class Board {
     }
 
     public boolean whiteHasOnlyOneMinorPiece() {
-        int knights = getKnightLocations(PlayerColor.WHITE).length;
-        int bishops = getBishopLocations(PlayerColor.WHITE).length;
+        int knights = Long.bitCount(getKnights(PlayerColor.WHITE));
+        int bishops = Long.bitCount(getBishops(PlayerColor.WHITE));
 
         return
             (this.boards[Piece.WHITE_PAWN.getIndex()] == 0) &&
@@ -463,15 +536,15 @@ public class Board {
     }
 
     public boolean whiteHasAllOriginalPieces() {
-        return getPawnLocations(PlayerColor.WHITE).length == 8 &&
-            getRookLocations(PlayerColor.WHITE).length == 2 &&
-            getKnightLocations(PlayerColor.WHITE).length == 2 &&
-            getBishopLocations(PlayerColor.WHITE).length == 2 &&
-            getQueenLocations(PlayerColor.WHITE).length == 1;
+        return Long.bitCount(getPawns(PlayerColor.WHITE)) == 8 &&
+            Long.bitCount(getRooks(PlayerColor.WHITE)) == 2 &&
+            Long.bitCount(getKnights(PlayerColor.WHITE)) == 2 &&
+            Long.bitCount(getBishops(PlayerColor.WHITE)) == 2 &&
+            Long.bitCount(getQueens(PlayerColor.WHITE)) == 1;
     }
 
     public boolean whiteHasOnlyTwoKnights() {
-        int knights = getKnightLocations(PlayerColor.WHITE).length;
+        int knights = Long.bitCount(getKnights(PlayerColor.WHITE));
 
         return
             (this.boards[Piece.WHITE_PAWN.getIndex()] == 0) &&
@@ -510,6 +583,11 @@ public class Board {
         return playerColor == PlayerColor.WHITE ? this.boards[Piece.WHITE_KING.getIndex()] : this.boards[Piece.BLACK_KING.getIndex()];
     }
 
+    // a knight, bishop, rook or queen - without one, passing is often the best move (zugzwang)
+    public boolean hasNonPawnMaterial(PlayerColor playerColor) {
+        return (getKnights(playerColor) | getBishops(playerColor) | getRooks(playerColor) | getQueens(playerColor)) != 0;
+    }
+
     public int[] getPawnLocations(PlayerColor playerColor) {
         return getPieceLocationsAsArray(Piece.WHITE_PAWN, Piece.BLACK_PAWN, playerColor);
     }
@@ -572,23 +650,28 @@ public class Board {
     }
 
     // ------------------------ Caching methods -------------------------------
-    public void populatePieceCache() {
-        clearPieceCache();
+    /*
+     * Rebuild the mailbox from the piece boards.  Like calculateAllCacheBoards, this is only needed when the piece
+     * boards are replaced wholesale.
+     */
+    public void populateMailbox() {
+        clearMailbox();
 
         for(int i = 0; i < this.boards.length; i++) {
-            int[] locations = Board.bitboardToArray(this.boards[i]);
-            Piece p = Piece.getPieceByIndex(i);
-
-            for (int location : locations) {
-                pieceCache[location] = p;
+            for (long squares = this.boards[i]; squares != 0; squares &= squares - 1) {
+                mailbox[Long.numberOfTrailingZeros(squares)] = (byte) i;
             }
         }
     }
 
-    private void clearPieceCache() {
-        Arrays.fill(pieceCache, Piece.EMPTY);
+    private void clearMailbox() {
+        Arrays.fill(mailbox, EMPTY_SQUARE);
     }
 
+    /*
+     * Rebuild the aggregates from the piece boards.  setByBoard/clearByBoard keep them current, so this is only
+     * needed when the piece boards are replaced wholesale.
+     */
     public void calculateAllCacheBoards() {
         calculateWhiteBoardWithoutKing();
         calculateWhiteBoard();
@@ -601,18 +684,6 @@ public class Board {
         return getBoards().clone();  // array of primitives will be cloned.
     }
 
-    public Piece[] copyOfPieceCache() {
-        return Arrays.copyOf(pieceCache, pieceCache.length);
-    }
-
-    public Piece[] getPieceCache() {
-        return pieceCache;
-    }
-
-    public void setPieceCache(Piece[] pieceCache) {
-        this.pieceCache = pieceCache;
-    }
-
     public long getWhite() {
         return this.whiteBoard;
     }
@@ -723,17 +794,611 @@ public class Board {
 
     // --------------------------- piece moves and attacks ---------------------------
     public boolean locationUnderAttack(PlayerColor color, int location) {
-        if(rookCaptures(color, location) != 0) return true;  // can the opposing player capture the king with their rooks?
-        if(bishopCaptures(color, location) != 0) return true;
-        if(queenCaptures(color, location) != 0) return true;
+        return (getAttacks(color) & (1L << location)) != 0;
+    }
+
+    /*
+     * Every square color attacks (or defends) in this position.  Sliders see through the other side's king, so a
+     * king can't step back along the ray of a slider that checks it.
+     */
+    public long getAttacks(PlayerColor color) {
+        int side = color.isWhite() ? 0 : 1;
+
+        if((attackMapsValid & (1 << side)) == 0)
+            calculateAttackMaps(color, side);
+
+        return sideAttacks[side];
+    }
+
+    /*
+     * The squares attacked by all of one kind of piece, e.g. every square a white knight attacks.
+     */
+    public long getAttacks(Piece piece) {
+        getAttacks(piece.getColor());
+
+        return pieceAttacks[piece.getIndex()];
+    }
+
+    private void calculateAttackMaps(PlayerColor color, int side) {
+        long empty = ~(getOccupied() & ~getKings(color.otherColor()));
+        boolean white = color.isWhite();
+        Piece king = white ? Piece.WHITE_KING : Piece.BLACK_KING;
+        Piece queen = white ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN;
+        Piece rook = white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
+        Piece bishop = white ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP;
+        Piece knight = white ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT;
+        Piece pawn = white ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
+        long queens = getQueens(color);
+
+        long kingAttacks = KoggeStone.kingAttacks(getKings(color));
+        long queenAttacks = KoggeStone.rookAttacks(queens, empty) | KoggeStone.bishopAttacks(queens, empty);
+        long rookAttacks = KoggeStone.rookAttacks(getRooks(color), empty);
+        long bishopAttacks = KoggeStone.bishopAttacks(getBishops(color), empty);
+        long knightAttacks = KoggeStone.knightAttacks(getKnights(color));
+        long pawnAttacks = white ? KoggeStone.whitePawnAttacks(getPawns(color)) : KoggeStone.blackPawnAttacks(getPawns(color));
+
+        pieceAttacks[king.getIndex()] = kingAttacks;
+        pieceAttacks[queen.getIndex()] = queenAttacks;
+        pieceAttacks[rook.getIndex()] = rookAttacks;
+        pieceAttacks[bishop.getIndex()] = bishopAttacks;
+        pieceAttacks[knight.getIndex()] = knightAttacks;
+        pieceAttacks[pawn.getIndex()] = pawnAttacks;
+        sideAttacks[side] = kingAttacks | queenAttacks | rookAttacks | bishopAttacks | knightAttacks | pawnAttacks;
+
+        attackMapsValid |= 1 << side;
+    }
+
+
+    /*
+     * Which of attackerColor's pieces attack location, given occupied as the board's occupancy?  Passing a modified
+     * occupancy answers "what if" questions (e.g. en passant discovered checks) without changing the board.
+     */
+    public long attackersTo(int location, PlayerColor attackerColor, long occupied) {
+        long queens = getQueens(attackerColor);
+
+        return (StraightLineMoves.getRookAttacks(location, occupied) & (getRooks(attackerColor) | queens)) |
+            (StraightLineMoves.getBishopAttacks(location, occupied) & (getBishops(attackerColor) | queens)) |
+            (knightCaptures(location) & getKnights(attackerColor)) |
+            (kingCaptures(location) & getKings(attackerColor)) |
+            (pawnCaptures(attackerColor.otherColor(), location) & getPawns(attackerColor));
+    }
+
+    /*
+     * Would the pawn on capturerLocation capturing en passant onto target (removing the pawn on victimLocation)
+     * leave its own king in check?
+     */
+    public boolean enPassantCaptureExposesKing(int capturerLocation, int victimLocation, int target) {
+        PlayerColor capturerColor = get(capturerLocation).getColor();
+        int kingLocation = getKingLocation(capturerColor);
+        if(kingLocation == -1) return true;  // this only happens in testing scenarios.
+
+        long occupied = (getOccupied() & ~(1L << capturerLocation) & ~(1L << victimLocation)) | (1L << target);
+
+        return (attackersTo(kingLocation, capturerColor.otherColor(), occupied) & ~(1L << victimLocation)) != 0;
+    }
+
+    // --------------------------- static exchange evaluation ---------------------------
+
+    /*
+     * Static exchange evaluation: the material move wins (negative if it loses material) once every capture on its
+     * destination has been played out.  Each side recaptures with its least valuable piece and may stop whenever
+     * carrying on would cost it more.  A slider lined up behind a capturing piece joins in when that piece leaves
+     * (x-rays).  Pins and checks are ignored, and a king only recaptures on a square the other side no longer
+     * attacks.  Uses the MVV-LVA piece values and allocates nothing.
+     *
+     * https://www.chessprogramming.org/SEE_-_The_Swap_Algorithm
+     */
+    public int see(int move) {
+        if (PackedMove.isCastling(move))
+            return 0;
+
+        int to = PackedMove.to(move);
+        int attacker = PackedMove.pieceIndex(move);
+        int side = attacker < BLACK_PIECES ? 0 : 1;
+        int onSquare = SEE_VALUES[attacker];
+        int depth = 0;
+
+        seeGain[0] = SEE_VALUES[PackedMove.capturedIndex(move)];
+        if (PackedMove.isPromoting(move)) {
+            onSquare = SEE_VALUES[PackedMove.promotionIndex(move)];
+            seeGain[0] += onSquare - SEE_VALUES[Piece.WHITE_PAWN.getIndex()];
+        }
+
+        long occupied = getOccupied() ^ (1L << PackedMove.from(move));
+        if (PackedMove.isEnPassantCapture(move))
+            occupied ^= 1L << PackedMove.enPassantCaptureSquare(move);
+
+        long attackers = attackersTo(to, occupied);
+
+        do {
+            depth++;
+            side ^= 1;
+            seeGain[depth] = onSquare - seeGain[depth - 1];   // if the piece on the square is taken
+            attackers &= occupied;
+
+            long own = attackers & (side == 0 ? whiteBoard : blackBoard);
+            if (own == 0)
+                break;
+
+            attacker = leastValuableAttacker(own, side);
+            if (attacker == KING_INDEX[side] && (attackers & (side == 0 ? blackBoard : whiteBoard)) != 0)
+                break;   // the king can't capture onto a defended square
+
+            onSquare = SEE_VALUES[attacker];
+            occupied ^= Long.lowestOneBit(own & boards[attacker]);
+            attackers |= xrayAttackersTo(to, attacker, occupied);
+        } while (depth < MAX_EXCHANGE);
+
+        while (--depth > 0)
+            seeGain[depth - 1] = -Math.max(-seeGain[depth - 1], seeGain[depth]);
+
+        return seeGain[0];
+    }
+
+    /*
+     * see(move) >= threshold, answered without the full swap list: the exchange stops as soon as the result is
+     * known to be on one side of the threshold.  Used to pick out losing captures, where see(move) >= 0 is all that
+     * is needed.
+     */
+    public boolean seeGe(int move, int threshold) {
+        if (PackedMove.isCastling(move))
+            return 0 >= threshold;
+
+        int to = PackedMove.to(move);
+        int mover = PackedMove.pieceIndex(move);
+        int onSquare = SEE_VALUES[mover];
+        int swap = SEE_VALUES[PackedMove.capturedIndex(move)] - threshold;
+
+        if (PackedMove.isPromoting(move)) {
+            onSquare = SEE_VALUES[PackedMove.promotionIndex(move)];
+            swap += onSquare - SEE_VALUES[Piece.WHITE_PAWN.getIndex()];
+        }
+
+        if (swap < 0)
+            return false;   // even if the piece isn't taken back
+
+        swap = onSquare - swap;
+        if (swap <= 0)
+            return true;    // even if the piece is taken back
+
+        long occupied = getOccupied() ^ (1L << PackedMove.from(move));
+        if (PackedMove.isEnPassantCapture(move))
+            occupied ^= 1L << PackedMove.enPassantCaptureSquare(move);
+
+        long attackers = attackersTo(to, occupied);
+        int side = mover < BLACK_PIECES ? 0 : 1;
+        boolean result = true;   // does the side that moved reach the threshold?
+
+        while (true) {
+            side ^= 1;
+            attackers &= occupied;
+
+            long own = attackers & (side == 0 ? whiteBoard : blackBoard);
+            if (own == 0)
+                break;
+
+            result = !result;
+            int attacker = leastValuableAttacker(own, side);
+
+            if (attacker == KING_INDEX[side])   // the king only takes if nothing can take it back
+                return (attackers & (side == 0 ? blackBoard : whiteBoard)) != 0 ? !result : result;
+
+            swap = SEE_VALUES[attacker] - swap;
+            if (swap < (result ? 1 : 0))
+                break;
+
+            occupied ^= Long.lowestOneBit(own & boards[attacker]);
+            attackers |= xrayAttackersTo(to, attacker, occupied);
+        }
+
+        return result;
+    }
+
+    // every piece of either color attacking location, given occupied as the board's occupancy
+    private long attackersTo(int location, long occupied) {
+        long queens = boards[Piece.WHITE_QUEEN.getIndex()] | boards[Piece.BLACK_QUEEN.getIndex()];
+        long rooks = boards[Piece.WHITE_ROOK.getIndex()] | boards[Piece.BLACK_ROOK.getIndex()] | queens;
+        long bishops = boards[Piece.WHITE_BISHOP.getIndex()] | boards[Piece.BLACK_BISHOP.getIndex()] | queens;
+
+        return (StraightLineMoves.getRookAttacks(location, occupied) & rooks) |
+            (StraightLineMoves.getBishopAttacks(location, occupied) & bishops) |
+            (knightCaptures(location) & (boards[Piece.WHITE_KNIGHT.getIndex()] | boards[Piece.BLACK_KNIGHT.getIndex()])) |
+            (kingCaptures(location) & (boards[Piece.WHITE_KING.getIndex()] | boards[Piece.BLACK_KING.getIndex()])) |
+            (pawnCaptures(PlayerColor.BLACK, location) & boards[Piece.WHITE_PAWN.getIndex()]) |
+            (pawnCaptures(PlayerColor.WHITE, location) & boards[Piece.BLACK_PAWN.getIndex()]);
+    }
+
+    // the sliders that see location once the piece (by index) that captured from in front of them has gone
+    private long xrayAttackersTo(int location, int capturer, long occupied) {
+        long queens = boards[Piece.WHITE_QUEEN.getIndex()] | boards[Piece.BLACK_QUEEN.getIndex()];
+        long xrays = 0;
+
+        if (DIAGONAL_XRAYS[capturer])
+            xrays |= StraightLineMoves.getBishopAttacks(location, occupied) &
+                (boards[Piece.WHITE_BISHOP.getIndex()] | boards[Piece.BLACK_BISHOP.getIndex()] | queens);
+
+        if (STRAIGHT_XRAYS[capturer])
+            xrays |= StraightLineMoves.getRookAttacks(location, occupied) &
+                (boards[Piece.WHITE_ROOK.getIndex()] | boards[Piece.BLACK_ROOK.getIndex()] | queens);
+
+        return xrays;
+    }
+
+    // the index of side's least valuable piece in attackers: pawn, knight, bishop, rook, queen, then king
+    private int leastValuableAttacker(long attackers, int side) {
+        int king = KING_INDEX[side];
+        int index = king + 5;   // the pawn
+
+        while (index > king && (attackers & boards[index]) == 0)
+            index--;
+
+        return index;
+    }
+
+    // --------------------------- legal move generation ---------------------------
+
+    /*
+     * Generate only legal moves for color, without making and undoing each move.  The checkers and the pinned
+     * pieces are found once; a single check limits every non-king move to capturing the checker or blocking the
+     * check, a pinned piece may only move along its pin ray, and a double check leaves only king moves.  King
+     * moves and en passant captures are tested against the attackers that would remain after the move.
+     *
+     * The moves come out in the same order as the pseudo legal generators (rook, knight, bishop, queen, king,
+     * pawn), so the search sees exactly the move list the make/undo filter in Game produces.
+     *
+     * Requires color to have a king on the board.
+     */
+    public void legalMoves(MoveBuffer playerMoves, PlayerColor color) {
+        legalMoves(playerMoves, color, ALL_MOVES);
+    }
 
-        if((pawnCaptures(color.otherColor(), location) & getPawns(color)) != 0) return true;
-        if((knightCaptures(location) & getKnights(color)) != 0) return true;
-        return (kingCaptures(location) & getKings(color)) != 0;
+    /*
+     * As above, limited to the kinds of move given (QUIET_MOVES, NOISY_MOVES or ALL_MOVES) so a staged move picker
+     * can generate captures first and only generate the quiet moves if it needs them.
+     */
+    public void legalMoves(MoveBuffer playerMoves, PlayerColor color, int kinds) {
+        playerMoves.clear();
+
+        int king = getKingLocation(color);
+        long occupied = getOccupied();
+        long checkers = attackersTo(king, color.otherColor(), occupied);
+
+        if(Long.bitCount(checkers) > 1) {   // double check - only the king can move
+            legalKingMoves(playerMoves, color, true, kinds);
+            return;
+        }
+
+        long pinned = pinnedPieces(king, color, occupied);
+        long opponent = color.isWhite() ? getBlack() : getWhite();
+        long target = checkers == 0 ? ~0L : Direction.between(king, Long.numberOfTrailingZeros(checkers)) | checkers;
+        long allowed = target &
+            (((kinds & QUIET_MOVES) != 0 ? ~occupied : 0L) | ((kinds & NOISY_MOVES) != 0 ? opponent : 0L));
+
+        for(long pieces = getRooks(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addLegalMoves(playerMoves, king, i, StraightLineMoves.getRookAttacks(i, occupied), allowed, pinned);
+        }
+
+        for(long pieces = getKnights(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addLegalMoves(playerMoves, king, i, KnightMoves.KNIGHT_MOVES[i], allowed, pinned);
+        }
+
+        for(long pieces = getBishops(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addLegalMoves(playerMoves, king, i, StraightLineMoves.getBishopAttacks(i, occupied), allowed, pinned);
+        }
+
+        for(long pieces = getQueens(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addLegalMoves(playerMoves, king, i,
+                StraightLineMoves.getRookAttacks(i, occupied) | StraightLineMoves.getBishopAttacks(i, occupied),
+                allowed, pinned);
+        }
+
+        legalKingMoves(playerMoves, color, checkers != 0, kinds);
+        legalPawnMoves(playerMoves, color, king, target, pinned, kinds);
+    }
+
+    /*
+     * The number of moves legalMoves(color) would generate, from popcounts of the legal destination bitboards -
+     * nothing is written to a MoveBuffer.  Perft needs only this count at its last ply.  A promotion counts as
+     * four moves.
+     *
+     * Requires color to have a king on the board.
+     */
+    public int countLegalMoves(PlayerColor color) {
+        int king = getKingLocation(color);
+        long occupied = getOccupied();
+        PlayerColor enemy = color.otherColor();
+        long own = color.isWhite() ? getWhite() : getBlack();
+        long checkers = attackersTo(king, enemy, occupied);
+        long attacked = getAttacks(enemy);
+
+        long kingDestinations = KingMoves.KING_MOVES[king] & ~own;
+        if(checkers == 0)
+            kingDestinations |= castlingDestinations(color, occupied, attacked);
+
+        int count = Long.bitCount(kingDestinations & ~attacked);
+
+        if(Long.bitCount(checkers) > 1)   // double check - only the king can move
+            return count;
+
+        long pinned = pinnedPieces(king, color, occupied);
+        long target = checkers == 0 ? ~0L : Direction.between(king, Long.numberOfTrailingZeros(checkers)) | checkers;
+        long allowed = target & ~own;
+
+        for(long pieces = getRooks(color) | getQueens(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            count += countDestinations(king, i, StraightLineMoves.getRookAttacks(i, occupied), allowed, pinned);
+        }
+
+        for(long pieces = getBishops(color) | getQueens(color); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            count += countDestinations(king, i, StraightLineMoves.getBishopAttacks(i, occupied), allowed, pinned);
+        }
+
+        // a pinned knight can never move along its pin ray
+        for(long pieces = getKnights(color) & ~pinned; pieces != 0; pieces &= pieces - 1)
+            count += Long.bitCount(KnightMoves.KNIGHT_MOVES[Long.numberOfTrailingZeros(pieces)] & allowed);
+
+        long pawns = getPawns(color);
+        long opponent = color.isWhite() ? getBlack() : getWhite();
+
+        count += countPawnMoves(pawns & ~pinned, color.isWhite(), target, ~occupied, opponent);
+
+        for(long pieces = pawns & pinned; pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            count += countPawnMoves(1L << i, color.isWhite(), target & Direction.line(king, i), ~occupied, opponent);
+        }
+
+        if(hasEnPassantTarget()) {   // removes two pieces from a line, so test each capture directly
+            int to = getEnPassantTarget();
+            int victim = color.isWhite() ? to - 8 : to + 8;
+
+            for(long pieces = PawnMoves.PAWN_ATTACKS[color.isWhite() ? 1 : 0][to] & pawns; pieces != 0; pieces &= pieces - 1) {
+                if(!enPassantCaptureExposesKing(Long.numberOfTrailingZeros(pieces), victim, to))
+                    count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static int countDestinations(int king, int from, long attacks, long allowed, long pinned) {
+        long destinations = attacks & allowed;
+
+        if((pinned & (1L << from)) != 0)
+            destinations &= Direction.line(king, from);
+
+        return Long.bitCount(destinations);
+    }
+
+    // pushes and captures (but not en passant) for a set of pawns, each move onto the last rank counting as four
+    private static int countPawnMoves(long pawns, boolean white, long target, long empty, long opponent) {
+        long oneStep = (white ? pawns << 8 : pawns >>> 8) & empty;
+        long twoSteps = (white ? (oneStep & RANK_3) << 8 : (oneStep & RANK_6) >>> 8) & empty;
+        long eastCaptures = (white ? pawns << 9 : pawns >>> 7) & ~FILE_A & opponent;
+        long westCaptures = (white ? pawns << 7 : pawns >>> 9) & ~FILE_H & opponent;
+        long promotionRank = white ? RANK_8 : RANK_1;
+
+        oneStep &= target;
+        eastCaptures &= target;
+        westCaptures &= target;
+
+        return Long.bitCount(oneStep) + Long.bitCount(twoSteps & target) + Long.bitCount(eastCaptures) + Long.bitCount(westCaptures) +
+            3 * (Long.bitCount(oneStep & promotionRank) + Long.bitCount(eastCaptures & promotionRank) + Long.bitCount(westCaptures & promotionRank));
+    }
+
+    // the squares the king can castle to, under the same conditions as KingMoves (the caller rules out check)
+    private long castlingDestinations(PlayerColor color, long occupied, long attacked) {
+        long destinations = 0L;
+
+        if(color.isWhite()) {
+            if(canCastlingWhiteKingSide() && (occupied & KingMoves.WHITE_KING_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&
+                (attacked & ((1L << 5) | (1L << 6))) == 0)
+                destinations |= 1L << 6;
+
+            if(canCastlingWhiteQueenSide() && (occupied & KingMoves.WHITE_QUEEN_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&
+                (attacked & ((1L << 3) | (1L << 2))) == 0)
+                destinations |= 1L << 2;
+        } else {
+            if(canCastlingBlackKingSide() && (occupied & KingMoves.BLACK_KING_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&
+                (attacked & ((1L << 61) | (1L << 62))) == 0)
+                destinations |= 1L << 62;
+
+            if(canCastlingBlackQueenSide() && (occupied & KingMoves.BLACK_QUEEN_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&
+                (attacked & ((1L << 59) | (1L << 58))) == 0)
+                destinations |= 1L << 58;
+        }
+
+        return destinations;
+    }
+
+    private static boolean isKind(int move, int kinds) {
+        return (kinds & (PackedMove.isQuiet(move) ? QUIET_MOVES : NOISY_MOVES)) != 0;
+    }
+
+    /*
+     * Own pieces that are the only blocker between the king and an enemy rook, bishop or queen.
+     */
+    private long pinnedPieces(int king, PlayerColor color, long occupied) {
+        PlayerColor enemy = color.otherColor();
+        long own = color.isWhite() ? getWhite() : getBlack();
+        long queens = getQueens(enemy);
+        long snipers = (StraightLineMoves.getRookAttacks(king, 0L) & (getRooks(enemy) | queens)) |
+            (StraightLineMoves.getBishopAttacks(king, 0L) & (getBishops(enemy) | queens));
+        long pinned = 0L;
+
+        for(; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Direction.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+
+            if(Long.bitCount(blockers) == 1)
+                pinned |= blockers & own;
+        }
+
+        return pinned;
+    }
+
+    private void addLegalMoves(MoveBuffer playerMoves, int king, int from, long attacks, long allowed, long pinned) {
+        long destinations = attacks & allowed;
+
+        if((pinned & (1L << from)) != 0)
+            destinations &= Direction.line(king, from);
+
+        long occupied = getOccupied();
+        addMoves(playerMoves, from, destinations, occupied, occupied);   // destinations hold no own pieces
+    }
+
+    // the king may not step onto an attacked square.  The attack map sees through the king, so this includes the
+    // squares its own body was shielding from a slider.
+    private void legalKingMoves(MoveBuffer playerMoves, PlayerColor color, boolean inCheck, int kinds) {
+        int start = playerMoves.size();
+        long attacked = getAttacks(color.otherColor());
+
+        kingMoves(playerMoves, color);
+
+        int kept = start;
+        for(int i = start; i < playerMoves.size(); i++) {
+            int move = playerMoves.get(i);
+
+            if(!isKind(move, kinds) || (inCheck && PackedMove.isCastling(move)))  // can't use castling to get out of check
+                continue;
+
+            if((attacked & (1L << PackedMove.to(move))) == 0)
+                playerMoves.set(kept++, move);
+        }
+
+        playerMoves.truncate(kept);
+    }
+
+    private void legalPawnMoves(MoveBuffer playerMoves, PlayerColor color, int king, long target, long pinned, int kinds) {
+        int start = playerMoves.size();
+
+        pawnMoves(playerMoves, color);
+
+        int kept = start;
+        for(int i = start; i < playerMoves.size(); i++) {
+            int move = playerMoves.get(i);
+            int from = PackedMove.from(move);
+            long to = 1L << PackedMove.to(move);
+            boolean legal;
+
+            if(!isKind(move, kinds))
+                legal = false;
+            else if(PackedMove.isEnPassantCapture(move))  // removes two pieces from a line, so test it directly
+                legal = !enPassantCaptureExposesKing(from, PackedMove.enPassantCaptureSquare(move), PackedMove.to(move));
+            else
+                legal = (to & target) != 0 &&
+                    ((pinned & (1L << from)) == 0 || (Direction.line(king, from) & to) != 0);
+
+            if(legal)
+                playerMoves.set(kept++, move);
+        }
+
+        playerMoves.truncate(kept);
+    }
+
+    /*
+     * Could move have been generated for color in this position?  Used to validate a move taken from the
+     * transposition table, which may belong to a different position that shares the hash key, before playing it
+     * without generating the full move list.  Doesn't consider whether the move leaves the king in check - see
+     * isLegal().
+     */
+    public boolean isPseudoLegal(int move, PlayerColor color) {
+        if(move == PackedMove.NONE)
+            return false;
+
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        long toBit = 1L << to;
+        Piece piece = PackedMove.piece(move);
+
+        if(piece == Piece.EMPTY || piece.getColor() != color || get(from) != piece)
+            return false;
+
+        if(((color.isWhite() ? getWhite() : getBlack()) & toBit) != 0)
+            return false;
+
+        if(PackedMove.isEnPassantCapture(move))
+            return piece.isPawn() && to == getEnPassantTarget() && (PawnMoves.PAWN_ATTACKS[piece.colorOffset()][from] & toBit) != 0;
+
+        // the destination must hold exactly the piece the move captures (nothing for a quiet move)
+        Piece captured = get(to);
+        if(captured != PackedMove.captured(move) || PackedMove.isCapture(move) == (captured == Piece.EMPTY))
+            return false;
+
+        if(piece.isPawn())
+            return pawnMoveIsPseudoLegal(move, color, from, to);
+
+        if(PackedMove.isPromoting(move))
+            return false;
+
+        return switch(piece.getAlgebraicChar()) {
+            case Piece.KING_ALGEBRAIC -> {
+                if(isCastling(from, to) != PackedMove.isCastling(move))
+                    yield false;
+
+                yield PackedMove.isCastling(move) ?
+                    (KingMoves.castlingMoves(this, color.isWhite()) & toBit) != 0 :
+                    (KingMoves.KING_MOVES[from] & toBit) != 0;
+            }
+            case Piece.KNIGHT_ALGEBRAIC -> (KnightMoves.KNIGHT_MOVES[from] & toBit) != 0;
+            case Piece.BISHOP_ALGEBRAIC -> (StraightLineMoves.getBishopAttacks(from, getOccupied()) & toBit) != 0;
+            case Piece.ROOK_ALGEBRAIC -> (StraightLineMoves.getRookAttacks(from, getOccupied()) & toBit) != 0;
+            default -> ((StraightLineMoves.getRookAttacks(from, getOccupied()) |
+                StraightLineMoves.getBishopAttacks(from, getOccupied())) & toBit) != 0;
+        };
+    }
+
+    private boolean pawnMoveIsPseudoLegal(int move, PlayerColor color, int from, int to) {
+        int forward = color.isWhite() ? 8 : -8;
+        long toBit = 1L << to;
+        long promotionRank = color.isWhite() ? RANK_8 : RANK_1;
+        long startRank = color.isWhite() ? RANK_2 : RANK_7;
+
+        if(((toBit & promotionRank) != 0) != PackedMove.isPromoting(move))
+            return false;
+
+        if(PackedMove.isPromoting(move) && PackedMove.promotion(move).getColor() != color)
+            return false;
+
+        if(PackedMove.isCapture(move))
+            return (PawnMoves.PAWN_ATTACKS[color.isWhite() ? 0 : 1][from] & toBit) != 0;
+
+        // pushes - the destination is known to be empty
+        return to == from + forward ||
+            (to == from + 2 * forward && ((1L << from) & startRank) != 0 && get(from + forward) == Piece.EMPTY);
     }
 
+    /*
+     * Does the pseudo legal move leave color's king safe?  Answered from the checkers and pins, as in legalMoves().
+     */
+    public boolean isLegal(int move, PlayerColor color) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        long toBit = 1L << to;
+        PlayerColor enemy = color.otherColor();
+        long occupied = getOccupied();
+
+        if(PackedMove.piece(move).getAlgebraicChar() == Piece.KING_ALGEBRAIC)   // castling was checked by KingMoves
+            return PackedMove.isCastling(move) || (getAttacks(enemy) & toBit) == 0;
 
-    public void pawnMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
+        if(PackedMove.isEnPassantCapture(move))
+            return !enPassantCaptureExposesKing(from, PackedMove.enPassantCaptureSquare(move), to);
+
+        int king = getKingLocation(color);
+        long checkers = attackersTo(king, enemy, occupied);
+
+        if(checkers != 0 &&
+            (Long.bitCount(checkers) > 1 ||
+                ((Direction.between(king, Long.numberOfTrailingZeros(checkers)) | checkers) & toBit) == 0))
+            return false;
+
+        return (pinnedPieces(king, color, occupied) & (1L << from)) == 0 || (Direction.line(king, from) & toBit) != 0;
+    }
+
+    public void pawnMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
         if(activePlayerColor == PlayerColor.WHITE) {
             whitePawnMoves(playerMoves);
         } else {
@@ -741,148 +1406,136 @@ public class Board {
         }
     }
 
-    private void blackPawnMoves(MoveList<Move> playerMoves) {
+    private void blackPawnMoves(MoveBuffer playerMoves) {
         long oneStep;
         oneStep = blackPawnOneStep(playerMoves);
         blackTwoStepsForward(playerMoves, oneStep);
         blackPawnAttacks(playerMoves);
     }
 
-    private void whitePawnMoves(MoveList<Move> playerMoves) {
+    private void whitePawnMoves(MoveBuffer playerMoves) {
         long oneStep;
         oneStep = whitePawnOneStep(playerMoves);
         whiteTwoStepsForward(playerMoves, oneStep);
         whitePawnAttacks(playerMoves);
     }
 
-    private void whiteTwoStepsForward(MoveList<Move> playerMoves, long oneStep) {
+    private void whiteTwoStepsForward(MoveBuffer playerMoves, long oneStep) {
         long twoStep = ((oneStep & Board.RANK_3) << 8L) & ~getOccupied();
         int diff = -16;
+        int piece = Piece.WHITE_PAWN.getIndex();
 
-        for (int dest : Board.bitboardToArray(twoStep)) {
-            Move m = new Move(Piece.WHITE_PAWN, dest + diff, dest, Move.NON_CAPTURE);
+        for (long squares = twoStep; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            int m = PackedMove.quiet(piece, dest + diff, dest);
             long enPassantMask = ((1L << (dest + 1)) | (1L << (dest - 1))) & getBlack();
 
             enPassantMask &= Board.RANK_4;
 
             if(enPassantMask != 0) {
-                m.setEnPassant(dest - 8);
+                m |= PackedMove.EN_PASSANT_PUSH_FLAG;
             }
 
             playerMoves.add(m);
         }
     }
 
-    private void blackTwoStepsForward(MoveList<Move> playerMoves, long oneStep) {
+    private void blackTwoStepsForward(MoveBuffer playerMoves, long oneStep) {
         long twoStep = ((oneStep & Board.RANK_6) >> 8L) & ~getOccupied();
         int diff = 16;
+        int piece = Piece.BLACK_PAWN.getIndex();
 
-        for (int dest : Board.bitboardToArray(twoStep)) {
-            Move m = new Move(Piece.BLACK_PAWN, dest + diff, dest, Move.NON_CAPTURE);
+        for (long squares = twoStep; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            int m = PackedMove.quiet(piece, dest + diff, dest);
             long enPassantMask = ((1L << (dest + 1)) | (1L << (dest - 1))) & getWhite();
 
             enPassantMask &= Board.RANK_5;
 
             if(enPassantMask != 0) {
-                m.setEnPassant(dest + 8);
+                m |= PackedMove.EN_PASSANT_PUSH_FLAG;
             }
 
             playerMoves.add(m);
         }
     }
 
-    private long whitePawnOneStep(MoveList<Move> playerMoves) {
+    private long whitePawnOneStep(MoveBuffer playerMoves) {
         long oneStep = (getWhitePawnBoard() << 8L) & ~getOccupied();
         int diff = -8;
-        Piece piece = Piece.WHITE_PAWN;
+        int piece = Piece.WHITE_PAWN.getIndex();
 
         // promotions
         long promotions = oneStep & Board.RANK_8;
         oneStep &= ~Board.RANK_8;
 
-        for (int dest : Board.bitboardToArray(oneStep)) {
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE));
+        for (long squares = oneStep; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            playerMoves.add(PackedMove.quiet(piece, dest + diff, dest));
         }
 
-        for (int dest : Board.bitboardToArray(promotions)) {
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.WHITE_QUEEN));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.WHITE_BISHOP));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.WHITE_KNIGHT));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.WHITE_ROOK));
+        for (long squares = promotions; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            addPromotions(playerMoves, PackedMove.quiet(piece, dest + diff, dest), PlayerColor.WHITE);
         }
 
         return oneStep;
     }
 
-    private long blackPawnOneStep(MoveList<Move> playerMoves) {
+    private long blackPawnOneStep(MoveBuffer playerMoves) {
         long oneStep = (getBlackPawnBoard() >> 8L) & ~getOccupied();
         int diff = 8;
-        Piece piece = Piece.BLACK_PAWN;
+        int piece = Piece.BLACK_PAWN.getIndex();
 
         // promotions
         long promotions = oneStep & Board.RANK_1;
         oneStep &= ~Board.RANK_1;
 
-        for (int dest : Board.bitboardToArray(oneStep)) {
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE));
+        for (long squares = oneStep; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            playerMoves.add(PackedMove.quiet(piece, dest + diff, dest));
         }
 
-        for (int dest : Board.bitboardToArray(promotions)) {
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.BLACK_QUEEN));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.BLACK_BISHOP));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.BLACK_KNIGHT));
-            playerMoves.add(new Move(piece, dest + diff, dest, Move.NON_CAPTURE, Piece.BLACK_ROOK));
+        for (long squares = promotions; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            addPromotions(playerMoves, PackedMove.quiet(piece, dest + diff, dest), PlayerColor.BLACK);
         }
         return oneStep;
     }
 
-    private void blackPawnAttacks(MoveList<Move> playerMoves) {
-        int attackCount;
-        long attackBoard;
-        long pawns = getBlackPawnBoard();
-        long opponentBoard = getWhite();
-        boolean hasEnPassantTarget = hasEnPassantTarget();
-        Piece piece = Piece.BLACK_PAWN;
-
-        for(int i : Board.bitboardToArray(pawns)) {
-            // capture
-            attackBoard = PawnMoves.PAWN_ATTACKS[1][i];
-
-            if(hasEnPassantTarget) {
-                attackBoard &= (opponentBoard | (1L << getEnPassantTarget()));
-            } else {
-                attackBoard &= opponentBoard;
-            }
-
-            attackCount = PieceMoves.popCount(attackBoard);
-
-            for(int j = 0; j < attackCount; j++) {
-                int bitPos = Long.numberOfTrailingZeros(attackBoard);
+    private static void addPromotions(MoveBuffer playerMoves, int move, PlayerColor color) {
+        if(color == PlayerColor.WHITE) {
+            playerMoves.add(PackedMove.withPromotion(move, Piece.WHITE_QUEEN.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.WHITE_BISHOP.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.WHITE_KNIGHT.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.WHITE_ROOK.getIndex()));
+        } else {
+            playerMoves.add(PackedMove.withPromotion(move, Piece.BLACK_QUEEN.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.BLACK_BISHOP.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.BLACK_KNIGHT.getIndex()));
+            playerMoves.add(PackedMove.withPromotion(move, Piece.BLACK_ROOK.getIndex()));
+        }
+    }
 
-                if((attackBoard & Board.RANK_1) != 0) {  // promoting
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.BLACK_QUEEN));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.BLACK_BISHOP));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.BLACK_KNIGHT));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.BLACK_ROOK));
-                } else {
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE));
-                }
+    private void blackPawnAttacks(MoveBuffer playerMoves) {
+        pawnAttacks(playerMoves, getBlackPawnBoard(), getWhite(), Piece.BLACK_PAWN, Board.RANK_1);
+    }
 
-                attackBoard &= (attackBoard - 1L);  // remove the bit
-            }
-        }
+    private void whitePawnAttacks(MoveBuffer playerMoves) {
+        pawnAttacks(playerMoves, getWhitePawnBoard(), getBlack(), Piece.WHITE_PAWN, Board.RANK_8);
     }
 
-    private void whitePawnAttacks(MoveList<Move> playerMoves) {
+    private void pawnAttacks(MoveBuffer playerMoves, long pawns, long opponentBoard, Piece piece, long promotionRank) {
         int attackCount;
         long attackBoard;
-        long pawns = getWhitePawnBoard();
-        long opponentBoard = getBlack();
         boolean hasEnPassantTarget = hasEnPassantTarget();
-        Piece piece = Piece.WHITE_PAWN;
-        for(int i : Board.bitboardToArray(pawns)) {
+        int pieceIndex = piece.getIndex();
+        int colorIndex = piece.colorOffset();
+
+        for (long squares = pawns; squares != 0; squares &= squares - 1) {
+            int i = Long.numberOfTrailingZeros(squares);
             // capture
-            attackBoard = PawnMoves.PAWN_ATTACKS[0][i];
+            attackBoard = PawnMoves.PAWN_ATTACKS[colorIndex][i];
 
             if(hasEnPassantTarget) {
                 attackBoard &= (opponentBoard | (1L << getEnPassantTarget()));
@@ -895,13 +1548,14 @@ public class Board {
             for(int j = 0; j < attackCount; j++) {
                 int bitPos = Long.numberOfTrailingZeros(attackBoard);
 
-                if((attackBoard & Board.RANK_8) != 0) {  // promoting
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.WHITE_QUEEN));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.WHITE_BISHOP));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.WHITE_KNIGHT));
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE, Piece.WHITE_ROOK));
+                if(hasEnPassantTarget && bitPos == getEnPassantTarget()) {
+                    playerMoves.add(PackedMove.encode(pieceIndex, i, bitPos,
+                        piece.inOpponentsColor().getIndex(), Piece.EMPTY.getIndex(),
+                        PackedMove.CAPTURE_FLAG | PackedMove.EN_PASSANT_CAPTURE_FLAG));
+                } else if((attackBoard & promotionRank) != 0) {  // promoting
+                    addPromotions(playerMoves, PackedMove.capture(pieceIndex, i, bitPos, get(bitPos).getIndex()), piece.getColor());
                 } else {
-                    playerMoves.add(new Move(piece, i, bitPos, Move.CAPTURE));
+                    playerMoves.add(PackedMove.capture(pieceIndex, i, bitPos, get(bitPos).getIndex()));
                 }
 
                 attackBoard &= (attackBoard - 1L);  // remove the bit
@@ -912,161 +1566,102 @@ public class Board {
     //   8/K1b5/1k5p/7P/8/8/8/8 b - - 0 1
     //   K7/2b5/1k5p/7P/8/8/8/8 w - -
 
-    public void kingMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
+    public void kingMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
         int kingLocation = getKingLocation(activePlayerColor);
-        KingMoves rawMoves = new KingMoves(this, kingLocation);
-        Piece king = get(kingLocation);
-        Move m;
+        int king = get(kingLocation).getIndex();
+        long occupied = getOccupied();
+        long attacks = KingMoves.KING_MOVES[kingLocation];
 
         // King: non capture
-        for (int dest : Board.bitboardToArray(rawMoves.getNonCaptureMoves())) {
-            m = new Move(king, kingLocation, dest, Move.NON_CAPTURE);
-            addCastling(m);
+        long nonCaptures = (attacks & ~occupied) | KingMoves.castlingMoves(this, activePlayerColor.isWhite());
+        for (long squares = nonCaptures; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            int m = PackedMove.quiet(king, kingLocation, dest);
+
+            if(isCastling(kingLocation, dest))
+                m |= PackedMove.CASTLING_FLAG;
+
             playerMoves.add(m);
         }
 
         // King: capture
-        for (int dest : Board.bitboardToArray(rawMoves.getCaptureMoves())) {
-            playerMoves.add(new Move(king, kingLocation, dest, Move.CAPTURE));
+        for (long squares = attacks & opponentPieces(activePlayerColor); squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            playerMoves.add(PackedMove.capture(king, kingLocation, dest, get(dest).getIndex()));
         }
     }
-    private void addCastling(Move m) {
-        int from = m.getFrom();
-        int to = m.getTo();
-
-        // white king side
-        if(from == CastlingHelper.WHITE_INITIAL_KING_LOCATION &&
-            to == CastlingHelper.WHITE_KING_SIDE_CASTLING_KING_LOCATION &&
-            canCastlingWhiteKingSide()) {
-            m.setCastling(
-                CastlingHelper.WHITE_KING_SIDE_INITIAL_ROOK_LOCATION,
-                CastlingHelper.WHITE_KING_SIDE_CASTLING_ROOK_LOCATION);
-        } else if(from == CastlingHelper.WHITE_INITIAL_KING_LOCATION &&
-            to == CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_KING_LOCATION &&
-            canCastlingWhiteQueenSide()) {
-            m.setCastling(
-                CastlingHelper.WHITE_QUEEN_SIDE_INITIAL_ROOK_LOCATION,
-                CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_ROOK_LOCATION);
-        } else if(from == CastlingHelper.BLACK_INITIAL_KING_LOCATION &&
-            to == CastlingHelper.BLACK_KING_SIDE_CASTLING_KING_LOCATION &&
-            canCastlingBlackKingSide()) {
-            m.setCastling(
-                CastlingHelper.BLACK_KING_SIDE_INITIAL_ROOK_LOCATION,
-                CastlingHelper.BLACK_KING_SIDE_CASTLING_ROOK_LOCATION);
-        } else if(from == CastlingHelper.BLACK_INITIAL_KING_LOCATION &&
-            to == CastlingHelper.BLACK_QUEEN_SIDE_CASTLING_KING_LOCATION &&
-            canCastlingBlackQueenSide()) {
-            m.setCastling(
-                CastlingHelper.BLACK_QUEEN_SIDE_INITIAL_ROOK_LOCATION,
-                CastlingHelper.BLACK_QUEEN_SIDE_CASTLING_ROOK_LOCATION);
+
+    private boolean isCastling(int from, int to) {
+        if(from == CastlingHelper.WHITE_INITIAL_KING_LOCATION) {
+            return (to == CastlingHelper.WHITE_KING_SIDE_CASTLING_KING_LOCATION && canCastlingWhiteKingSide()) ||
+                (to == CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_KING_LOCATION && canCastlingWhiteQueenSide());
         }
-    }
 
-    public void queenMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
-        int[] locations;
-        locations = getQueenLocations(activePlayerColor);
+        if(from == CastlingHelper.BLACK_INITIAL_KING_LOCATION) {
+            return (to == CastlingHelper.BLACK_KING_SIDE_CASTLING_KING_LOCATION && canCastlingBlackKingSide()) ||
+                (to == CastlingHelper.BLACK_QUEEN_SIDE_CASTLING_KING_LOCATION && canCastlingBlackQueenSide());
+        }
 
-        for(int i : locations) {
-            QueenMoves rawMoves = new QueenMoves(this, i);
-            Piece piece = get(i);
+        return false;
+    }
 
-            // Queen: non capture
-            for (int dest : Board.bitboardToArray(rawMoves.getNonCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.NON_CAPTURE));
-            }
+    // the sliders and knights take their attacks straight from the tables, as legalMoves does, so generating the
+    // pseudo-legal moves (and Game.pseudoLegalMoveCount for mobility) allocates nothing per piece
+    public void queenMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
+        long occupied = getOccupied();
 
-            // Queen: capture
-            for (int dest : Board.bitboardToArray(rawMoves.getCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.CAPTURE));
-            }
+        for(long pieces = getQueens(activePlayerColor); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addMoves(playerMoves, i, StraightLineMoves.getRookAttacks(i, occupied) |
+                StraightLineMoves.getBishopAttacks(i, occupied), occupied, opponentPieces(activePlayerColor));
         }
     }
 
-    public void bishopMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
-        int[] locations;
-        locations = getBishopLocations(activePlayerColor);
+    public void bishopMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
+        long occupied = getOccupied();
 
-        for(int i : locations) {
-            BishopMoves rawMoves = new BishopMoves(this, i);
-            Piece piece = get(i);
-
-            // Bishop: non capture
-            for (int dest : Board.bitboardToArray(rawMoves.getNonCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.NON_CAPTURE));
-            }
-
-            // Bishop: capture
-            for (int dest : Board.bitboardToArray(rawMoves.getCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.CAPTURE));
-            }
+        for(long pieces = getBishops(activePlayerColor); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addMoves(playerMoves, i, StraightLineMoves.getBishopAttacks(i, occupied), occupied, opponentPieces(activePlayerColor));
         }
     }
 
-    public void knightMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
-        int[] locations;
-        locations = getKnightLocations(activePlayerColor);
-
-        for(int i : locations) {
-            KnightMoves rawMoves = new KnightMoves(this, i);
-            Piece piece = get(i);
-
-            // Knight: non capture
-            for (int dest : Board.bitboardToArray(rawMoves.getNonCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.NON_CAPTURE));
-            }
+    public void knightMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
+        long occupied = getOccupied();
 
-            // Knight: capture
-            for (int dest : Board.bitboardToArray(rawMoves.getCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.CAPTURE));
-            }
+        for(long pieces = getKnights(activePlayerColor); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addMoves(playerMoves, i, KnightMoves.KNIGHT_MOVES[i], occupied, opponentPieces(activePlayerColor));
         }
     }
 
-    public void rookMoves(MoveList<Move> playerMoves, PlayerColor activePlayerColor) {
-        int[] locations;
-        locations = getRookLocations(activePlayerColor);
-
-        for(int i : locations) {
-            RookMoves rawMoves = new RookMoves(this, i);
-            Piece piece = get(i);
+    public void rookMoves(MoveBuffer playerMoves, PlayerColor activePlayerColor) {
+        long occupied = getOccupied();
 
-            // Rook: non capture
-            for (int dest : Board.bitboardToArray(rawMoves.getNonCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.NON_CAPTURE));
-            }
-
-            // Rook: capture
-            for (int dest : Board.bitboardToArray(rawMoves.getCaptureMoves())) {
-                playerMoves.add(new Move(piece, i, dest, Move.CAPTURE));
-            }
+        for(long pieces = getRooks(activePlayerColor); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            addMoves(playerMoves, i, StraightLineMoves.getRookAttacks(i, occupied), occupied, opponentPieces(activePlayerColor));
         }
     }
 
-    private long rookCaptures(PlayerColor pc, int targetLocation) {
-        long rooks = getRooks(pc);
-        long rooksAttacks = getRookAttacksForSquare(targetLocation);
-        return rooksAttacks & rooks;
+    private long opponentPieces(PlayerColor color) {
+        return color.isWhite() ? getBlack() : getWhite();
     }
 
-    private long getRookAttacksForSquare(int location) {
-        return StraightLineMoves.getRookAttacks(location, getOccupied()) & ~0L;
-    }
-
-    private long bishopCaptures(PlayerColor pc, int targetLocation) {
-        long bishops = getBishops(pc);
-        long bishopAttacks = getBishopAttacksForSquare(targetLocation);
-        return bishopAttacks & bishops;
-    }
+    private void addMoves(MoveBuffer playerMoves, int from, long attacks, long occupied, long opponent) {
+        int piece = get(from).getIndex();
 
-    private long queenCaptures(PlayerColor pc, int targetLocation) {
-        long queens = getQueens(pc);
-        long rooksAttacks = getRookAttacksForSquare(targetLocation);
-        long bishopAttacks = getBishopAttacksForSquare(targetLocation);
-        return (rooksAttacks | bishopAttacks) & queens;
-    }
+        // non capture
+        for (long squares = attacks & ~occupied; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            playerMoves.add(PackedMove.quiet(piece, from, dest));
+        }
 
-    private long getBishopAttacksForSquare(int location) {
-        return StraightLineMoves.getBishopAttacks(location, getOccupied()) & ~0L;
+        // capture
+        for (long squares = attacks & opponent; squares != 0; squares &= squares - 1) {
+            int dest = Long.numberOfTrailingZeros(squares);
+            playerMoves.add(PackedMove.capture(piece, from, dest, get(dest).getIndex()));
+        }
     }
 
     private long pawnCaptures(PlayerColor color, int targetLocation) {
@@ -1193,6 +1788,15 @@ public class Board {
         return zobristHasher.calculateFullZorbistKey(pc,this);
     }
 
+    /*
+     * Restore the castling rights and en passant target saved before a move without touching the zobrist key -
+     * the caller restores the saved key with forceZobristKey.
+     */
+    void restoreState(int castlingRights, int enPassantTarget) {
+        this.castlingRights = castlingRights;
+        this.enPassantTarget = enPassantTarget;
+    }
+
     public void forceZobristKey(long previousZobristKey) {
         zobristHasher.forceKey(previousZobristKey);
     }
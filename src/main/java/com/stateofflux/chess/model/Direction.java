@@ -28,10 +28,55 @@ public enum Direction {
         }
     }
 
+    /*
+     * BETWEEN[a][b] - the squares strictly between a and b when they share a rank, file or diagonal (else 0).
+     * LINE[a][b]    - the whole rank, file or diagonal through a and b, edge to edge (else 0).
+     * Used by the legal move generator for check blocks and pin rays.
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for(int a = 0; a < 64; a++) {
+            for(Direction d : values()) {
+                long ray = getRay(d, a);
+                long line = ray | getRay(d.opposite(), a) | (1L << a);
+
+                for(long squares = ray; squares != 0; squares &= squares - 1) {
+                    int b = Long.numberOfTrailingZeros(squares);
+
+                    BETWEEN[a][b] = ray & ~getRay(d, b) & ~(1L << b);
+                    LINE[a][b] = line;
+                }
+            }
+        }
+    }
+
     public static long getRay(Direction d, int location) {
         return RAYS[d.ordinal()][location];
     }
 
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    public Direction opposite() {
+        return switch (this) {
+            case UP -> DOWN;
+            case DOWN -> UP;
+            case LEFT -> RIGHT;
+            case RIGHT -> LEFT;
+            case UP_LEFT -> DOWN_RIGHT;
+            case UP_RIGHT -> DOWN_LEFT;
+            case DOWN_LEFT -> UP_RIGHT;
+            case DOWN_RIGHT -> UP_LEFT;
+        };
+    }
+
     /**
      * Moves all set bits in the given bitboard n squares west and returns the new
      * bitboard, discarding those that fall off the edge.
@@ -16,22 +16,43 @@ import org.slf4j.LoggerFactory;
 public class Game {
     final static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private static final int MOVE_LIST_CAPACITY = 220;
-
-    record History(Move move, long[] boards, int enPassantTarget, boolean check, int castlingRights, Piece[] pieceCache, long hash, int movesWithoutCaptureOrPawnMove, int fullmoveCounter) {}
+    private static final int UNDO_STACK_CAPACITY = 512;   // plies; grows if a game runs longer
+    private static final int FORK_HISTORY_HEADROOM = 128; // plies a fork can play before its history grows
 
     protected final Board board;
     protected PlayerColor activePlayerColor;
 
     private boolean check = false;
     private boolean limitMovesTo50 = true;
+    private boolean legalMoveGenerator = true;   // false: filter pseudo legal moves by making and undoing them
     private final int depth;
     private int clock;
     private boolean outOfTime = false;
     private int movesWithoutCaptureOrPawnMove = 0;   // the FEN halfmove clock (for the 50-move rule)
     private int fullmoveCounter = 1;                  // the FEN fullmove counter
 
-    private final List<History> historyOfMoves = new ArrayList<>();
-    private final List<Move> toRemove = new ArrayList<>(64);
+    /*
+     * The undo stack.  Each ply stores only what cannot be recomputed from the move itself: the captured piece and
+     * the irreversible state (castling rights, en passant target, clocks, check and the zobrist key) from before the
+     * move.  The arrays are preallocated so making a move does not allocate.
+     */
+    private int historySize = 0;
+    private int[] historyMoves;
+    private Piece[] historyCaptured;
+    private int[] historyCastlingRights;
+    private int[] historyEnPassantTarget;
+    private int[] historyHalfmoveClock;
+    private int[] historyFullmoveCounter;
+    private boolean[] historyCheck;
+    private long[] historyHash;
+
+    private final MoveBuffer mobilityMoves = new MoveBuffer();   // reused when only a move count is needed
+    private MoveBuffer[] perftMoves = new MoveBuffer[0];          // one buffer per perft depth
+    private PerftTable perftTable;                                // optional subtree count cache for perft
+
+    // legalMoveCount() for the position with legalMoveCountKey, or -1.  Reset by move() and undo().
+    private long legalMoveCountKey;
+    private int legalMoveCount = -1;
 
     // --------------------------- Constructors ---------------------------
 
@@ -39,6 +60,7 @@ public class Game {
     public Game() {
         this.depth = 0;
         this.board = new Board();
+        allocateHistory(UNDO_STACK_CAPACITY);
 
         setActivePlayerColor(PlayerColor.WHITE);
         setClock(0);
@@ -53,6 +75,7 @@ public class Game {
         FenString fen = new FenString(fenString);
         this.depth = depth;
         this.board = new Board(fen.getPiecePlacement());
+        allocateHistory(UNDO_STACK_CAPACITY);
 
         setActivePlayerColor(fen.getActivePlayerColor());
         board.setCastlingRightsFromFen(fen.getCastlingRights());
@@ -73,6 +96,55 @@ public class Game {
         }
     }
 
+    // an independent copy - see fork()
+    private Game(Game other) {
+        this.depth = other.depth;
+        this.board = other.board.copy();
+        this.activePlayerColor = other.activePlayerColor;
+
+        check = other.check;
+        limitMovesTo50 = other.limitMovesTo50;
+        legalMoveGenerator = other.legalMoveGenerator;
+        clock = other.clock;
+        outOfTime = other.outOfTime;
+        movesWithoutCaptureOrPawnMove = other.movesWithoutCaptureOrPawnMove;
+        fullmoveCounter = other.fullmoveCounter;
+        perftTable = other.perftTable;
+
+        // the history so far plus room to search; it grows as usual if that runs out
+        int capacity = other.historySize + FORK_HISTORY_HEADROOM;
+        historySize = other.historySize;
+        historyMoves = Arrays.copyOf(other.historyMoves, capacity);
+        historyCaptured = Arrays.copyOf(other.historyCaptured, capacity);
+        historyCastlingRights = Arrays.copyOf(other.historyCastlingRights, capacity);
+        historyEnPassantTarget = Arrays.copyOf(other.historyEnPassantTarget, capacity);
+        historyHalfmoveClock = Arrays.copyOf(other.historyHalfmoveClock, capacity);
+        historyFullmoveCounter = Arrays.copyOf(other.historyFullmoveCounter, capacity);
+        historyCheck = Arrays.copyOf(other.historyCheck, capacity);
+        historyHash = Arrays.copyOf(other.historyHash, capacity);
+    }
+
+    /*
+     * A game of its own in the same state - the position, zobrist key, clocks, settings and the move history, so
+     * the fork sees the same repetitions and can undo the moves that led here.  It shares nothing mutable with this
+     * game (the perft table, if any, is safe to share), so it can be handed to another thread.  Built with array
+     * copies rather than a FEN round trip.
+     */
+    public Game fork() {
+        return new Game(this);
+    }
+
+    private void allocateHistory(int capacity) {
+        historyMoves = new int[capacity];
+        historyCaptured = new Piece[capacity];
+        historyCastlingRights = new int[capacity];
+        historyEnPassantTarget = new int[capacity];
+        historyHalfmoveClock = new int[capacity];
+        historyFullmoveCounter = new int[capacity];
+        historyCheck = new boolean[capacity];
+        historyHash = new long[capacity];
+    }
+
     // --------------------------- Static Methods ---------------------------
     static public Game fromSan(String san) {
         Game g = new Game();
@@ -123,65 +195,35 @@ public class Game {
         return this.board;
     }
 
-    private void removeEnPassantIfAttackingPieceIsPinned(Move move) {
-        // if the move doesn't trigger en passant, then exit
-        if(move.getEnPassantTarget() == PawnMoves.NO_EN_PASSANT_VALUE)
-            return;
-
-        boolean enPassantToTheEast = doesEnPassantPieceExist(move, move.getTo() - 1);
-        boolean enPassantToTheWest = doesEnPassantPieceExist(move, move.getTo() + 1);
-        boolean eastEnPassantExposesCheck = enPassantToTheEast && doesMoveExposeCheck(move, move.getTo() - 1);
-        boolean westEnPassantExposesCheck = enPassantToTheWest && doesMoveExposeCheck(move, move.getTo() + 1);
-
-        if(eastEnPassantExposesCheck && westEnPassantExposesCheck) { // two en passant and they both expose check
-            move.clearEnPassant();
-            board.clearEnPassantTarget();
-        } else if(enPassantToTheEast && !enPassantToTheWest && eastEnPassantExposesCheck) {  // west only en passant
-            move.clearEnPassant();
-            board.clearEnPassantTarget();
-        } else if(!enPassantToTheEast && enPassantToTheWest && westEnPassantExposesCheck) {  // east only en passant
-            move.clearEnPassant();
-            board.clearEnPassantTarget();
-        }
-    }
-
-    private boolean doesMoveExposeCheck(Move move, int location) {
-        boolean exposesCheck = false;
-
-        Piece enPassantPiece = getBoard().get(location);
-        Move enPassantMove = new Move(enPassantPiece, location, move.getEnPassantTarget(), true);
-
-        // simplified move/undo.
-        long[] boardsBackup = getBoard().copyOfBoards();
-        Piece[] piecesBackup = getBoard().copyOfPieceCache();
-        int backupEnPassant = getBoard().getEnPassantTarget();
-        long hash = getZobristKey();
-
-        this.getBoard().update(enPassantMove);
-        board.setEnPassantTarget(move.getEnPassantTarget());
-
-        if(isPlayerInCheck(getActivePlayerColor().otherColor())) {
-            exposesCheck = true;
-        }
+    /*
+     * A double push only leaves an en passant target if an adjacent enemy pawn could legally capture onto it.  If
+     * every such capture would expose the capturing king to check, the target is not set.
+     */
+    private int enPassantTargetFor(int move) {
+        int target = PackedMove.enPassantPushTarget(move);
+        int to = PackedMove.to(move);
 
-        this.getBoard().setBoards(boardsBackup);
-        this.getBoard().setPieceCache(piecesBackup);
-        getBoard().setEnPassantTarget(backupEnPassant);
+        boolean enPassantToTheEast = doesEnPassantPieceExist(move, to - 1);
+        boolean enPassantToTheWest = doesEnPassantPieceExist(move, to + 1);
+        boolean eastEnPassantExposesCheck = enPassantToTheEast && board.enPassantCaptureExposesKing(to - 1, to, target);
+        boolean westEnPassantExposesCheck = enPassantToTheWest && board.enPassantCaptureExposesKing(to + 1, to, target);
 
-        board.calculateAllCacheBoards();  // this could also be backed up and restored rather than recalculated.
-        board.forceZobristKey(hash);
+        if((enPassantToTheEast && enPassantToTheWest && eastEnPassantExposesCheck && westEnPassantExposesCheck) || // two en passant and they both expose check
+            (enPassantToTheEast && !enPassantToTheWest && eastEnPassantExposesCheck) ||                          // west only en passant
+            (!enPassantToTheEast && enPassantToTheWest && westEnPassantExposesCheck))                            // east only en passant
+            return PawnMoves.NO_EN_PASSANT_VALUE;
 
-        return exposesCheck;
+        return target;
     }
 
-    private boolean doesEnPassantPieceExist(Move move, int location) {
+    private boolean doesEnPassantPieceExist(int move, int location) {
         Piece enPassantPiece;
 
-        if (Board.rank(location) == Board.rank(move.getTo())) { // same rank
+        if (Board.rank(location) == Board.rank(PackedMove.to(move))) { // same rank
             enPassantPiece = getBoard().get(location);
 
             return (enPassantPiece.isPawn() &&
-                enPassantPiece.getColor() != move.getPiece().getColor());
+                enPassantPiece.getColor() != PackedMove.piece(move).getColor());
         }
 
         return false;
@@ -230,6 +272,10 @@ public class Game {
     public MoveList<Move> generateMoves() {
         return generateMovesFor(getActivePlayerColor());
     }
+
+    public void generateMoves(MoveBuffer playerMoves) {
+        generateMovesFor(playerMoves, getActivePlayerColor());
+    }
     // This method generates moves at a board level (batch) instead of calculating moves a single position at a time.
 
     /*
@@ -246,14 +292,82 @@ public class Game {
      * This method should not be called as part of the "move" method as it would be too expensive.
      */
     public MoveList<Move> generateMovesFor(PlayerColor playerColor) {
-        MoveList<Move> playerMoves = pseudoLegalMoves(playerColor);
+        MoveBuffer playerMoves = new MoveBuffer();
+        generateMovesFor(playerMoves, playerColor);
+
+        return playerMoves.toMoveList();
+    }
+
+    public void generateMovesFor(MoveBuffer playerMoves, PlayerColor playerColor) {
+        if (depth == 0 && legalMoveGenerator && board.getKingLocation(playerColor) != -1) {
+            board.legalMoves(playerMoves, playerColor);
+            return;
+        }
+
+        pseudoLegalMoves(playerMoves, playerColor);
 
         if (depth > 0)
-            return playerMoves;
+            return;
 
         cleanUpMoves(playerMoves);
+    }
+
+    /*
+     * Generate only some kinds of legal move for the active player - Board.QUIET_MOVES, Board.NOISY_MOVES (captures
+     * and promotions) or Board.ALL_MOVES.  Used by the search's staged move picker.
+     */
+    public void generateMoves(MoveBuffer playerMoves, int kinds) {
+        PlayerColor playerColor = getActivePlayerColor();
+
+        if (depth == 0 && legalMoveGenerator && board.getKingLocation(playerColor) != -1) {
+            board.legalMoves(playerMoves, playerColor, kinds);
+            return;
+        }
+
+        generateMovesFor(playerMoves, playerColor);
+
+        if (kinds == Board.ALL_MOVES)
+            return;
+
+        int kept = 0;
+        for (int i = 0; i < playerMoves.size(); i++) {
+            int move = playerMoves.get(i);
+
+            if ((kinds & (PackedMove.isQuiet(move) ? Board.QUIET_MOVES : Board.NOISY_MOVES)) != 0)
+                playerMoves.set(kept++, move);
+        }
 
-        return playerMoves;
+        playerMoves.truncate(kept);
+    }
+
+    /*
+     * Is move (e.g. from the transposition table) legal for the active player in this position?  Cheaper than
+     * generating every move and searching the list for it.
+     */
+    public boolean isLegalMove(int move) {
+        PlayerColor playerColor = getActivePlayerColor();
+
+        if (!board.isPseudoLegal(move, playerColor))
+            return false;
+
+        if (board.getKingLocation(playerColor) == -1)
+            return false;  // kingless test positions have no legal moves (see isPlayerInCheck)
+
+        return depth > 0 || board.isLegal(move, playerColor);
+    }
+
+    /*
+     * Choose between the legal move generator in Board (the default) and the original path, which generates
+     * pseudo legal moves and drops those that leave the king in check by making and undoing each one.  Both
+     * produce the same moves in the same order; the switch exists so perft can verify one against the other.
+     */
+    public void setLegalMoveGenerator(boolean enabled) {
+        this.legalMoveGenerator = enabled;
+        legalMoveCount = -1;
+    }
+
+    public boolean isLegalMoveGenerator() {
+        return legalMoveGenerator;
     }
 
     public MoveList<Move> pseudoLegalMoves() {
@@ -261,7 +375,14 @@ public class Game {
     }
 
     public MoveList<Move> pseudoLegalMoves(PlayerColor playerColor) {
-        MoveList<Move> playerMoves = new MoveList<>(new ArrayList<>(MOVE_LIST_CAPACITY));
+        MoveBuffer playerMoves = new MoveBuffer();
+        pseudoLegalMoves(playerMoves, playerColor);
+
+        return playerMoves.toMoveList();
+    }
+
+    public void pseudoLegalMoves(MoveBuffer playerMoves, PlayerColor playerColor) {
+        playerMoves.clear();
 
         board.rookMoves(playerMoves, playerColor);
         board.knightMoves(playerMoves, playerColor);
@@ -269,31 +390,63 @@ public class Game {
         board.queenMoves(playerMoves, playerColor);
         board.kingMoves(playerMoves, playerColor);
         board.pawnMoves(playerMoves, playerColor);
+    }
 
-        return playerMoves;
+    /*
+     * The number of legal moves for the active player.  Counted from bitboards without generating the moves when
+     * the legal move generator is in use, otherwise the size of the generated list.  The count is kept until the
+     * position changes, so the game state checks (checkmate, stalemate, isOver) and the evaluators share one count
+     * per position.
+     */
+    public int legalMoveCount() {
+        long key = getZobristKey();
+
+        if (legalMoveCount < 0 || legalMoveCountKey != key) {
+            legalMoveCountKey = key;
+            legalMoveCount = countLegalMoves(getActivePlayerColor());
+        }
+
+        return legalMoveCount;
     }
 
-    private void cleanUpMoves(MoveList<Move> playerMoves) {
+    private int countLegalMoves(PlayerColor playerColor) {
+        if (depth == 0 && legalMoveGenerator && board.getKingLocation(playerColor) != -1)
+            return board.countLegalMoves(playerColor);
+
+        generateMovesFor(mobilityMoves, playerColor);
+
+        return mobilityMoves.size();
+    }
+
+    public int pseudoLegalMoveCount(PlayerColor playerColor) {
+        pseudoLegalMoves(mobilityMoves, playerColor);
+
+        return mobilityMoves.size();
+    }
+
+    private void cleanUpMoves(MoveBuffer playerMoves) {
         // if in check, make sure any move takes the player out of check.
-        toRemove.clear();
+        int kept = 0;
+
+        for (int i = 0; i < playerMoves.size(); i++) {
+            int move = playerMoves.get(i);
 
-        for (var move : playerMoves) {
             // can't use castling to get out of check
-            if(isChecked() && move.isCastling()) {
-                toRemove.add(move);
+            if(isChecked() && PackedMove.isCastling(move))
                 continue;
-            }
 
             move(move);
 
             // is the other play in check?
-            if(isPlayerInCheck(getActivePlayerColor().otherColor()))  // move() changes the color of the player, so check to see if the previous move was valid
-                toRemove.add(move);
+            boolean exposesCheck = isPlayerInCheck(getActivePlayerColor().otherColor());  // move() changes the color of the player, so check to see if the previous move was valid
 
             undo();
+
+            if(!exposesCheck)
+                playerMoves.set(kept++, move);
         }
 
-        playerMoves.removeAll(toRemove);
+        playerMoves.truncate(kept);
     }
 
     /*
@@ -320,7 +473,6 @@ public class Game {
         else {
             updateMoveForCastling(m);
             m.updateForEnPassant(getBoard().getWhitePawnBoard(), getBoard().getBlackPawnBoard());
-            removeEnPassantIfAttackingPieceIsPinned(m);
         }
 
         move(m);
@@ -389,24 +541,32 @@ public class Game {
     }
 
     public void move(Move move) {
-        long[] boardsBeforeUpdate = getBoard().copyOfBoards();
-        Piece[] copyOfPieceCache = Arrays.copyOf(getBoard().getPieceCache(), getBoard().getPieceCache().length);
-
-        // TODO: the depth of historyOfMoves is only as deep as the depth traversal (so no very large - currently depth 6 max)
-        //       Therefore convert this to a fixed size array (and reuse the arrays instead of reallocated them).
-        historyOfMoves.add(new History(
-            move,
-            boardsBeforeUpdate,
-            board.getEnPassantTarget(),
-            check,
-            board.getCastlingRights(),
-            copyOfPieceCache,
-            board.getZobristKey(),
-            movesWithoutCaptureOrPawnMove,
-            fullmoveCounter
-        ));
-
-        updateBoard(move);
+        int packed = board.packMove(move);
+
+        move(packed);
+
+        // keep the object view in step with what was played
+        if(PackedMove.isCapture(packed))
+            move.setCapturePiece(PackedMove.captured(packed));
+        if(move.isEnPassant() && !board.hasEnPassantTarget())
+            move.clearEnPassant();
+    }
+
+    public void move(int move) {
+        if(historySize == historyMoves.length)
+            growHistory();
+
+        int ply = historySize++;
+        historyMoves[ply] = move;
+        historyCastlingRights[ply] = board.getCastlingRights();
+        historyEnPassantTarget[ply] = board.getEnPassantTarget();
+        historyHalfmoveClock[ply] = movesWithoutCaptureOrPawnMove;
+        historyFullmoveCounter[ply] = fullmoveCounter;
+        historyCheck[ply] = check;
+        historyHash[ply] = board.getZobristKey();
+        legalMoveCount = -1;
+
+        historyCaptured[ply] = updateBoard(move);
         switchActivePlayer();
         setActivePlayerIsInCheck();
         incrementClock();
@@ -416,32 +576,87 @@ public class Game {
             fullmoveCounter++;
     }
 
-    public Move undo() {
-        int size = historyOfMoves.size();
-        History h = historyOfMoves.remove(size - 1);
+    /*
+     * Take back the last move.  Returns the packed move that was undone.
+     */
+    public int undo() {
+        int ply = --historySize;
+        int move = historyMoves[ply];
 
-        // restore the board
-        getBoard().setBoards(h.boards);          // updates the piece oriented views
-        getBoard().setPieceCache(h.pieceCache);  // updates the board oriented views
-        board.setEnPassantTarget(h.enPassantTarget());
+        board.undo(move, historyCaptured[ply]);
+        board.restoreState(historyCastlingRights[ply], historyEnPassantTarget[ply]);
 
-        check = h.check();
+        this.activePlayerColor = getWaitingPlayer();
+        board.forceZobristKey(historyHash[ply]);   // covers the pieces, side to move, castling and en passant
 
-        board.setCastlingRights(h.castlingRights());
+        check = historyCheck[ply];
+        decrementClock();
+        movesWithoutCaptureOrPawnMove = historyHalfmoveClock[ply];
+        fullmoveCounter = historyFullmoveCounter[ply];
+        historyCaptured[ply] = null;
+        legalMoveCount = -1;
 
+        return move;
+    }
+
+    /*
+     * Pass: the other player moves next and nothing on the board changes.  For null-move pruning in the search, so
+     * never in check.  It goes on the undo stack as PackedMove.NONE and must be taken back with undoNullMove().
+     *
+     * Only the side to move and the en passant target change, so the zobrist key is updated in place.  The halfmove
+     * clock starts again: no position before a pass can repeat after it.
+     */
+    public void makeNullMove() {
+        if(historySize == historyMoves.length)
+            growHistory();
+
+        int ply = historySize++;
+        historyMoves[ply] = PackedMove.NONE;
+        historyCastlingRights[ply] = board.getCastlingRights();
+        historyEnPassantTarget[ply] = board.getEnPassantTarget();
+        historyHalfmoveClock[ply] = movesWithoutCaptureOrPawnMove;
+        historyFullmoveCounter[ply] = fullmoveCounter;
+        historyCheck[ply] = check;
+        historyHash[ply] = board.getZobristKey();
+        historyCaptured[ply] = null;
+        legalMoveCount = -1;
+
+        board.clearEnPassantTarget();
         switchActivePlayer();
+        check = false;
+        incrementClock();
+        movesWithoutCaptureOrPawnMove = 0;
+    }
 
-        board.forceZobristKey(h.hash);
+    public void undoNullMove() {
+        int ply = --historySize;
 
+        board.restoreState(historyCastlingRights[ply], historyEnPassantTarget[ply]);
+        this.activePlayerColor = getWaitingPlayer();
+        board.forceZobristKey(historyHash[ply]);
+
+        check = historyCheck[ply];
         decrementClock();
-        movesWithoutCaptureOrPawnMove = h.movesWithoutCaptureOrPawnMove();
-        fullmoveCounter = h.fullmoveCounter();
+        movesWithoutCaptureOrPawnMove = historyHalfmoveClock[ply];
+        fullmoveCounter = historyFullmoveCounter[ply];
+        legalMoveCount = -1;
+    }
 
-        return h.move;
+    private void growHistory() {
+        int capacity = historyMoves.length * 2;
+
+        historyMoves = Arrays.copyOf(historyMoves, capacity);
+        historyCaptured = Arrays.copyOf(historyCaptured, capacity);
+        historyCastlingRights = Arrays.copyOf(historyCastlingRights, capacity);
+        historyEnPassantTarget = Arrays.copyOf(historyEnPassantTarget, capacity);
+        historyHalfmoveClock = Arrays.copyOf(historyHalfmoveClock, capacity);
+        historyFullmoveCounter = Arrays.copyOf(historyFullmoveCounter, capacity);
+        historyCheck = Arrays.copyOf(historyCheck, capacity);
+        historyHash = Arrays.copyOf(historyHash, capacity);
     }
 
-    private void update50MoveRule(Move move) {
-        if(move.isCapture() || move.getPiece().equals(Piece.WHITE_PAWN) || move.getPiece().equals(Piece.BLACK_PAWN))
+    private void update50MoveRule(int move) {
+        if(PackedMove.isCapture(move) || PackedMove.piece(move).isPawn())
             movesWithoutCaptureOrPawnMove = 0;
         else
             movesWithoutCaptureOrPawnMove++;
@@ -467,20 +682,24 @@ public class Game {
         }
     }
 
-    private void updateBoard(Move move) {
-        int removed = this.getBoard().update(move);
-        removeCastlingRightsFor(move, removed);
-        board.setEnPassantTarget(move.getEnPassantTarget());   // set en passant
-        removeEnPassantIfAttackingPieceIsPinned(move);         // determine if it should be removed (or not)
-        board.setEnPassantTarget(move.getEnPassantTarget());   // set the en passant with the updated info
+    private Piece updateBoard(int move) {
+        Piece removed = this.getBoard().update(move);
+        removeCastlingRightsFor(move);
+
+        if(PackedMove.isEnPassantPush(move))
+            board.setEnPassantTarget(enPassantTargetFor(move));  // only if the target can be taken
+        else
+            board.clearEnPassantTarget();
+
+        return removed;
     }
 
     public String getMoveHistory() {
         StringBuilder sb = new StringBuilder();
 
-        for(int i = 0; i < historyOfMoves.size(); i++) {
+        for(int i = 0; i < historySize; i++) {
             if(i % 2 == 0) sb.append((i / 2) + 1).append(". ");
-            sb.append(historyOfMoves.get(i).move.toLongSan()).append(" ");
+            sb.append(PackedMove.toLongSan(historyMoves[i])).append(" ");
         }
 
         return sb.toString();
@@ -629,9 +848,9 @@ public class Game {
     }
 
     @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT", justification = "the default case is a no-op")
-    private void removeCastlingRightsFor(Move m, int removedLocation) {
-        if(m.isCapture()) {
-            switch(removedLocation) {
+    private void removeCastlingRightsFor(int m) {
+        if(PackedMove.isCapture(m)) {
+            switch(PackedMove.to(m)) {
                 case CastlingHelper.WHITE_QUEEN_SIDE_INITIAL_ROOK_LOCATION: board.clearCastlingWhiteQueenSide(); break;
                 case CastlingHelper.WHITE_KING_SIDE_INITIAL_ROOK_LOCATION:  board.clearCastlingWhiteKingSide(); break;
                 case CastlingHelper.BLACK_QUEEN_SIDE_INITIAL_ROOK_LOCATION: board.clearCastlingBlackQueenSide(); break;
@@ -639,7 +858,7 @@ public class Game {
             }
         }
 
-        switch(m.getFrom()) {
+        switch(PackedMove.from(m)) {
             case CastlingHelper.WHITE_INITIAL_KING_LOCATION: board.clearCastlingWhite(); break;
             case CastlingHelper.BLACK_INITIAL_KING_LOCATION: board.clearCastlingBlack(); break;
             case CastlingHelper.WHITE_QUEEN_SIDE_INITIAL_ROOK_LOCATION: board.clearCastlingWhiteQueenSide(); break;
@@ -681,11 +900,18 @@ public class Game {
             this.board.getEnPassantTargetAsFen();
     }
 
+    /*
+     * The last move played, or null before the first move and after a null move, which moved no piece.
+     */
     public Move getLastMove() {
-        if(historyOfMoves.isEmpty())
+        if(historySize == 0 || historyMoves[historySize - 1] == PackedMove.NONE)
             return null;
 
-        return historyOfMoves.get(historyOfMoves.size() - 1).move();
+        return Move.fromPacked(historyMoves[historySize - 1]);
+    }
+
+    public boolean isAfterNullMove() {
+        return historySize > 0 && historyMoves[historySize - 1] == PackedMove.NONE;
     }
 
     // --------------------------- check game state ---------------------------
@@ -702,26 +928,43 @@ public class Game {
     }
 
     public boolean isCheckmated() {
-        return isChecked() && generateMoves().isEmpty();
+        return isChecked() && !hasLegalMoves();
+    }
+
+    private boolean hasLegalMoves() {
+        return legalMoveCount() > 0;
     }
 
     // 3-fold repetition
     // https://en.wikipedia.org/wiki/Threefold_repetition
     public boolean isRepetition() {
-        int n = 2;
-        long[] temp = historyOfMoves.stream().mapToLong(x -> x.hash).toArray();
-
-        int length = temp.length;
-        if (length > 3) {
-            long lastKey = getZobristKey();
-            int rep = 0;
-
-            // looking for two other matches in the history, moving in reverse order, and only looking at moves for the same color (-2).
-            for(int x = length - 4; x >= 0; x -= 2) {
-                if(temp[x] == lastKey && ++rep >= n)
-                    return true;
-            }
+        return repeats(2);
+    }
+
+    /*
+     * The current position has been seen before, since the last capture or pawn move.  The search treats a single
+     * repetition as a draw: if the line was worth repeating once, it can be repeated again.
+     */
+    public boolean isRepeated() {
+        return repeats(1);
+    }
+
+    /*
+     * The current position occurred at least this many times before.  historyHash holds the key before each move,
+     * so the position at ply x is historyHash[x].  Only the same side to move (every other ply) and only the plies
+     * since the last capture or pawn move can match - nothing before an irreversible move can recur - so the scan is
+     * bounded by the halfmove clock rather than the length of the game.
+     */
+    private boolean repeats(int times) {
+        long key = getZobristKey();
+        int oldest = Math.max(0, historySize - movesWithoutCaptureOrPawnMove);
+        int rep = 0;
+
+        for(int x = historySize - 4; x >= oldest; x -= 2) {
+            if(historyHash[x] == key && ++rep >= times)
+                return true;
         }
+
         return false;
     }
 
@@ -754,7 +997,7 @@ public class Game {
     }
 
     public boolean isStalemate() {
-        return !isChecked() && generateMoves().isEmpty();
+        return !isChecked() && !hasLegalMoves();
     }
 
     public boolean hasResigned() {
@@ -786,23 +1029,23 @@ public class Game {
     public SortedMap<String, Long> perftAtRoot(int depth) {
         SortedMap<String, Long> perftResults = new TreeMap<>();
 
-        MoveList<Move> moves = this.generateMoves();
+        MoveBuffer moves = new MoveBuffer();
+        this.generateMoves(moves);
 
         long moveCounter;
 
-        for (var move : moves) {
-//            logger.atInfo().log("root move: {}", move);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
 
             if(depth > 1) {
                 move(move);
                 moveCounter = perft(depth - 1);
-//            logger.atInfo().log("perft: {} {}", move, moveCounter);
                 undo();
             } else {
                 moveCounter = 1;
             }
 
-            perftResults.put(move.toLongSan(), moveCounter);
+            perftResults.put(PackedMove.toLongSan(move), moveCounter);
         }
 
         // printPerft(perftResults);
@@ -811,24 +1054,56 @@ public class Game {
     }
 
     public long perft(int depth) {
-//        logger.atInfo().log("perft FEN: {}", this.asFen());
-        MoveList<Move> moves = this.generateMoves();
+        // depth 1 is a popcount over bitboards - cheaper to redo than to look up
+        if (perftTable != null && depth > 1) {
+            long cached = perftTable.get(getZobristKey(), depth);
+            if (cached >= 0)
+                return cached;
+        }
 
         if (depth == 1)
-            return moves.size();
+            return legalMoveCount();
+
+        MoveBuffer moves = perftMoves(depth);
+        this.generateMoves(moves);
 
         long moveCounter = 0;
 
-        for (var move : moves) {
-//            logger.atInfo().log("move: {}", move);
-            move(move);
+        for (int i = 0; i < moves.size(); i++) {
+            move(moves.get(i));
             moveCounter += perft(depth - 1);
             undo();
         }
 
+        if (perftTable != null)
+            perftTable.put(getZobristKey(), depth, moveCounter);
+
         return moveCounter;
     }
 
+    /*
+     * Cache subtree counts in table during perft (null, the default, turns the cache off).  The key covers the
+     * pieces, side to move, castling rights and en passant file, which is everything a perft count depends on.
+     */
+    public void setPerftTable(PerftTable table) {
+        this.perftTable = table;
+    }
+
+    public PerftTable getPerftTable() {
+        return perftTable;
+    }
+
+    private MoveBuffer perftMoves(int depth) {
+        if(depth >= perftMoves.length) {
+            MoveBuffer[] buffers = Arrays.copyOf(perftMoves, depth + 1);
+            for(int i = perftMoves.length; i < buffers.length; i++)
+                buffers[i] = new MoveBuffer();
+            perftMoves = buffers;
+        }
+
+        return perftMoves[depth];
+    }
+
     public void printPerft(SortedMap<String, Long> perftResults) {
         logger.atInfo().log("Perft Results");
         logger.atInfo().log("-------------");
@@ -847,7 +1122,7 @@ public class Game {
         logger.atDebug().log("FEN:           {}", asFen());
         logger.atDebug().log("isOver:        {}", isOver());
         logger.atDebug().log("Winner is:     {}", getWinner());
-        logger.atDebug().log("move count:    {}", historyOfMoves.size());
+        logger.atDebug().log("move count:    {}", historySize);
         logger.atDebug().log("moves:         {}", getMoveHistory());
         logger.atDebug().log("");
         logger.atDebug().log("isCheckmated:  {}", isCheckmated());
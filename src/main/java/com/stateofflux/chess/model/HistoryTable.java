@@ -0,0 +1,127 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.Piece;
+
+import java.util.Arrays;
+
+/*
+ * What the search has learnt about quiet moves, for ordering the quiet moves it hasn't searched yet.  A quiet move
+ * that caused a beta cutoff is likely to cut off again in a similar position, so it is remembered four ways:
+ *
+ *   - killers: the last two quiet moves that cut off at this ply, tried first among the quiets
+ *     (https://www.chessprogramming.org/Killer_Heuristic)
+ *   - counter moves: the quiet move that last refuted the opponent's previous move (piece and to square)
+ *     (https://www.chessprogramming.org/Countermove_Heuristic)
+ *   - butterfly history: a score per side, from square and to square
+ *     (https://www.chessprogramming.org/History_Heuristic)
+ *   - continuation history: a score per previous move (piece and to square) and this move (piece and to square)
+ *
+ * A cutoff raises the history scores of the move that cut off and lowers those of the quiet moves searched before
+ * it, by depth squared.  The scores are kept within +/- MAX_HISTORY by "gravity": the closer a score is to the
+ * limit the less a bonus moves it, so old results fade rather than saturate.
+ *
+ * The table is for one search on one thread; the search clears it when it starts.
+ */
+public class HistoryTable {
+    public static final int MAX_HISTORY = 16_384;
+
+    private static final int MAX_BONUS = 1_200;
+    private static final int KILLER_SCORE = 4 * MAX_HISTORY;
+    private static final int COUNTER_MOVE_SCORE = 3 * MAX_HISTORY;
+    private static final int PIECE_SQUARES = Piece.SIZE * 64;
+
+    private final int[] killers;
+    private final int[] counterMoves = new int[PIECE_SQUARES];
+    private final int[] butterfly = new int[2 * 64 * 64];
+    private final int[] continuation = new int[PIECE_SQUARES * PIECE_SQUARES];
+
+    public HistoryTable(int maxPly) {
+        killers = new int[maxPly * 2];
+    }
+
+    public void clear() {
+        Arrays.fill(killers, PackedMove.NONE);
+        Arrays.fill(counterMoves, PackedMove.NONE);
+        Arrays.fill(butterfly, 0);
+        Arrays.fill(continuation, 0);
+    }
+
+    /*
+     * The quiet move cutoff caused a beta cutoff at ply, after the quiet moves in tried[0, triedCount) failed to.
+     * previousMove is the move that led to the node, or PackedMove.NONE at the root.
+     */
+    public void update(int cutoff, int previousMove, int ply, int depth, int[] tried, int triedCount) {
+        if (!PackedMove.sameMove(killers[ply * 2], cutoff)) {
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = cutoff;
+        }
+
+        if (previousMove != PackedMove.NONE)
+            counterMoves[pieceSquare(previousMove)] = cutoff;
+
+        int bonus = Math.min(depth * depth, MAX_BONUS);
+        adjust(cutoff, previousMove, bonus);
+
+        for (int i = 0; i < triedCount; i++) {
+            if (!PackedMove.sameMove(tried[i], cutoff))
+                adjust(tried[i], previousMove, -bonus);
+        }
+    }
+
+    /*
+     * The ordering score of a quiet move: killers first, then the counter move, then the rest by history.
+     */
+    public int score(int move, int previousMove, int ply) {
+        if (PackedMove.sameMove(move, killers[ply * 2]))
+            return KILLER_SCORE;
+        if (PackedMove.sameMove(move, killers[ply * 2 + 1]))
+            return KILLER_SCORE - 1;
+
+        if (previousMove == PackedMove.NONE)
+            return butterfly[butterflyIndex(move)];
+
+        if (PackedMove.sameMove(move, counterMoves[pieceSquare(previousMove)]))
+            return COUNTER_MOVE_SCORE;
+
+        return butterfly[butterflyIndex(move)] + continuation[continuationIndex(previousMove, move)];
+    }
+
+    public int killer(int ply, int slot) {
+        return killers[ply * 2 + slot];
+    }
+
+    public int counterMove(int previousMove) {
+        return counterMoves[pieceSquare(previousMove)];
+    }
+
+    public int butterfly(int move) {
+        return butterfly[butterflyIndex(move)];
+    }
+
+    public int continuation(int previousMove, int move) {
+        return continuation[continuationIndex(previousMove, move)];
+    }
+
+    private void adjust(int move, int previousMove, int bonus) {
+        int index = butterflyIndex(move);
+        butterfly[index] += bonus - butterfly[index] * Math.abs(bonus) / MAX_HISTORY;
+
+        if (previousMove != PackedMove.NONE) {
+            index = continuationIndex(previousMove, move);
+            continuation[index] += bonus - continuation[index] * Math.abs(bonus) / MAX_HISTORY;
+        }
+    }
+
+    private static int butterflyIndex(int move) {
+        int side = PackedMove.pieceIndex(move) < Piece.BLACK_KING.getIndex() ? 0 : 1;
+        return (side << 12) | (PackedMove.from(move) << 6) | PackedMove.to(move);
+    }
+
+    private static int pieceSquare(int move) {
+        return (PackedMove.pieceIndex(move) << 6) | PackedMove.to(move);
+    }
+
+    private static int continuationIndex(int previousMove, int move) {
+        return pieceSquare(previousMove) * PIECE_SQUARES + pieceSquare(move);
+    }
+}
@@ -0,0 +1,143 @@
+package com.stateofflux.chess.model;
+
+/*
+ * Set-wise attack generation: every piece of a kind is moved at once, rather than one table lookup per piece.
+ * https://www.chessprogramming.org/Kogge-Stone_Algorithm
+ *
+ * An occluded fill floods the generators along one direction through the empty squares in log2(8) = 3 steps,
+ * and shifting the fill one more step gives the attacks, including the first blocker.  The east/west directions
+ * mask off the file a bit would wrap onto.
+ */
+public final class KoggeStone {
+    private static final long NOT_A_FILE = ~Board.FILE_A;
+    private static final long NOT_H_FILE = ~Board.FILE_H;
+
+    private KoggeStone() {}
+
+    // ------------------------ sliders -------------------------------
+
+    public static long rookAttacks(long rooks, long empty) {
+        return northAttacks(rooks, empty) | southAttacks(rooks, empty) |
+            eastAttacks(rooks, empty) | westAttacks(rooks, empty);
+    }
+
+    public static long bishopAttacks(long bishops, long empty) {
+        return northEastAttacks(bishops, empty) | northWestAttacks(bishops, empty) |
+            southEastAttacks(bishops, empty) | southWestAttacks(bishops, empty);
+    }
+
+    // ------------------------ leapers -------------------------------
+
+    public static long knightAttacks(long knights) {
+        long east1 = (knights << 1) & NOT_A_FILE;
+        long west1 = (knights >>> 1) & NOT_H_FILE;
+        long east2 = (knights << 2) & ~(Board.FILE_A | Board.FILE_A << 1);
+        long west2 = (knights >>> 2) & ~(Board.FILE_H | Board.FILE_H >>> 1);
+        long oneFile = east1 | west1;
+        long twoFiles = east2 | west2;
+
+        return (oneFile << 16) | (oneFile >>> 16) | (twoFiles << 8) | (twoFiles >>> 8);
+    }
+
+    public static long kingAttacks(long kings) {
+        long row = kings | ((kings << 1) & NOT_A_FILE) | ((kings >>> 1) & NOT_H_FILE);
+
+        return (row | (row << 8) | (row >>> 8)) & ~kings;
+    }
+
+    public static long whitePawnAttacks(long pawns) {
+        return ((pawns << 9) & NOT_A_FILE) | ((pawns << 7) & NOT_H_FILE);
+    }
+
+    public static long blackPawnAttacks(long pawns) {
+        return ((pawns >>> 7) & NOT_A_FILE) | ((pawns >>> 9) & NOT_H_FILE);
+    }
+
+    // ------------------------ occluded fills, one per direction -------------------------------
+
+    static long northAttacks(long gen, long empty) {
+        gen |= empty & (gen << 8);
+        empty &= empty << 8;
+        gen |= empty & (gen << 16);
+        empty &= empty << 16;
+        gen |= empty & (gen << 32);
+
+        return gen << 8;
+    }
+
+    static long southAttacks(long gen, long empty) {
+        gen |= empty & (gen >>> 8);
+        empty &= empty >>> 8;
+        gen |= empty & (gen >>> 16);
+        empty &= empty >>> 16;
+        gen |= empty & (gen >>> 32);
+
+        return gen >>> 8;
+    }
+
+    static long eastAttacks(long gen, long empty) {
+        empty &= NOT_A_FILE;
+        gen |= empty & (gen << 1);
+        empty &= empty << 1;
+        gen |= empty & (gen << 2);
+        empty &= empty << 2;
+        gen |= empty & (gen << 4);
+
+        return (gen << 1) & NOT_A_FILE;
+    }
+
+    static long westAttacks(long gen, long empty) {
+        empty &= NOT_H_FILE;
+        gen |= empty & (gen >>> 1);
+        empty &= empty >>> 1;
+        gen |= empty & (gen >>> 2);
+        empty &= empty >>> 2;
+        gen |= empty & (gen >>> 4);
+
+        return (gen >>> 1) & NOT_H_FILE;
+    }
+
+    static long northEastAttacks(long gen, long empty) {
+        empty &= NOT_A_FILE;
+        gen |= empty & (gen << 9);
+        empty &= empty << 9;
+        gen |= empty & (gen << 18);
+        empty &= empty << 18;
+        gen |= empty & (gen << 36);
+
+        return (gen << 9) & NOT_A_FILE;
+    }
+
+    static long northWestAttacks(long gen, long empty) {
+        empty &= NOT_H_FILE;
+        gen |= empty & (gen << 7);
+        empty &= empty << 7;
+        gen |= empty & (gen << 14);
+        empty &= empty << 14;
+        gen |= empty & (gen << 28);
+
+        return (gen << 7) & NOT_H_FILE;
+    }
+
+    static long southEastAttacks(long gen, long empty) {
+        empty &= NOT_A_FILE;
+        gen |= empty & (gen >>> 7);
+        empty &= empty >>> 7;
+        gen |= empty & (gen >>> 14);
+        empty &= empty >>> 14;
+        gen |= empty & (gen >>> 28);
+
+        return (gen >>> 7) & NOT_A_FILE;
+    }
+
+    static long southWestAttacks(long gen, long empty) {
+        empty &= NOT_H_FILE;
+        gen |= empty & (gen >>> 9);
+        empty &= empty >>> 9;
+        gen |= empty & (gen >>> 18);
+        empty &= empty >>> 18;
+        gen |= empty & (gen >>> 36);
+
+        return (gen >>> 9) & NOT_H_FILE;
+    }
+}
@@ -111,6 +111,45 @@ public class Move {
         return m;
     }
 
+    /*
+     * The packed (int) form of this move - see PackedMove.  The en passant capture flag depends on the board the
+     * move is played on, so it is added by Board.packMove().
+     */
+    public int toPacked() {
+        int flags = 0;
+
+        if(isCapture()) flags |= PackedMove.CAPTURE_FLAG;
+        if(isCastling()) flags |= PackedMove.CASTLING_FLAG;
+        if(isEnPassant()) flags |= PackedMove.EN_PASSANT_PUSH_FLAG;
+
+        return PackedMove.encode(
+            getPiece().getIndex(),
+            getFrom(),
+            getTo(),
+            getCapturePiece().getIndex(),
+            getPromotionPiece().getIndex(),
+            flags);
+    }
+
+    public static Move fromPacked(int packed) {
+        Move m = new Move(
+            PackedMove.piece(packed),
+            PackedMove.from(packed),
+            PackedMove.to(packed),
+            PackedMove.isCapture(packed),
+            PackedMove.promotion(packed));
+
+        m.setCapturePiece(PackedMove.captured(packed));
+
+        if(PackedMove.isCastling(packed))
+            m.setCastling(PackedMove.castlingRookFrom(packed), PackedMove.castlingRookTo(packed));
+
+        if(PackedMove.isEnPassantPush(packed))
+            m.setEnPassant(PackedMove.enPassantPushTarget(packed));
+
+        return m;
+    }
+
     public int getFrom() {
         return from;
     }
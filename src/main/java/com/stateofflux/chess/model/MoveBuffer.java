@@ -0,0 +1,94 @@
+package com.stateofflux.chess.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * A reusable, allocation free list of packed moves (see PackedMove).  The generators write into it and the
+ * search keeps one per ply, clearing it rather than allocating a new list at every node.
+ */
+public class MoveBuffer {
+    public static final int DEFAULT_CAPACITY = 256;  // the most legal moves known in a position is 218
+
+    private final int[] moves;
+    private int size;
+
+    public MoveBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveBuffer(int capacity) {
+        this.moves = new int[capacity];
+        this.size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // shrink the buffer, dropping everything from size onwards
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    public void swap(int i, int j) {
+        int t = moves[i];
+        moves[i] = moves[j];
+        moves[j] = t;
+    }
+
+    // remove the move at index, preserving the order of the remaining moves
+    public void remove(int index) {
+        System.arraycopy(moves, index + 1, moves, index, size - index - 1);
+        size--;
+    }
+
+    // move the entry at index to the front, preserving the order of the remaining moves
+    public void moveToFront(int index) {
+        int m = moves[index];
+        System.arraycopy(moves, 0, moves, 1, index);
+        moves[0] = m;
+    }
+
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.sameMove(moves[i], move))
+                return i;
+        }
+
+        return -1;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+
+    public MoveList<Move> toMoveList() {
+        MoveList<Move> list = new MoveList<>(new ArrayList<>(size));
+
+        for (int i = 0; i < size; i++)
+            list.add(Move.fromPacked(moves[i]));
+
+        return list;
+    }
+}
@@ -0,0 +1,193 @@
+package com.stateofflux.chess.model;
+
+/*
+ * Hands the search one move at a time, in stages, generating each stage only when the previous one is used up:
+ *
+ *   1. the transposition table move (checked for legality in this position, nothing is generated)
+ *   2. good captures and promotions, best MVV-LVA first
+ *   3. quiet moves, in generation order, or - given a HistoryTable - killers, then the counter move, then the rest
+ *      by history score
+ *   4. bad captures - those that lose material once the exchange is played out (Board.seeGe) - in MVV-LVA order
+ *
+ * A node that cuts off on the hash move or a capture never generates its quiet moves.  The search keeps one
+ * picker per ply and resets it at every node, so the buffers are reused rather than allocated.
+ *
+ * The quiescence search resets the picker with resetNoisy(), which skips the hash move and the quiet moves and
+ * hands out only captures and promotions.
+ *
+ * Stage 4 is off by default (bad captures stay with the good ones).  Without a quiescence search the leaf
+ * evaluation can't see the recapture, so a queen taking a defended pawn still looks good at the horizon, and
+ * searching it after the quiet moves costs more nodes than it saves.
+ */
+public class MovePicker {
+    private static final int TT_MOVE = 0;
+    private static final int GENERATE_NOISY = 1;
+    private static final int GOOD_NOISY = 2;
+    private static final int GENERATE_QUIETS = 3;
+    private static final int QUIETS = 4;
+    private static final int BAD_NOISY = 5;
+    private static final int DONE = 6;
+
+    private final MoveBuffer noisy = new MoveBuffer();
+    private final MoveBuffer quiets = new MoveBuffer();
+    private final MoveBuffer badNoisy = new MoveBuffer();
+    private final int[] scores = new int[MoveBuffer.DEFAULT_CAPACITY];
+    private final int[] quietScores = new int[MoveBuffer.DEFAULT_CAPACITY];
+    private boolean deferLosingCaptures = false;
+    private boolean noisyOnly;
+
+    private Game game;
+    private int ttMove;
+    private HistoryTable history;
+    private int previousMove;
+    private int ply;
+    private int stage;
+    private int index;
+    private int generated;
+
+    /*
+     * Start picking moves for the active player of game.  ttMove may be PackedMove.NONE.
+     */
+    public void reset(Game game, int ttMove) {
+        reset(game, ttMove, null, PackedMove.NONE, 0);
+    }
+
+    /*
+     * As reset(game, ttMove), ordering the quiet moves with history (may be null).  previousMove is the move that
+     * led to this position and ply its distance from the root of the search.
+     */
+    public void reset(Game game, int ttMove, HistoryTable history, int previousMove, int ply) {
+        this.game = game;
+        this.ttMove = ttMove;
+        this.history = history;
+        this.previousMove = previousMove;
+        this.ply = ply;
+        this.stage = TT_MOVE;
+        this.index = 0;
+        this.generated = 0;
+        this.noisyOnly = false;
+    }
+
+    /*
+     * Start picking only the captures and promotions of the active player of game, for the quiescence search.
+     */
+    public void resetNoisy(Game game) {
+        reset(game, PackedMove.NONE);
+        this.stage = GENERATE_NOISY;
+        this.noisyOnly = true;
+    }
+
+    /*
+     * The next move to search, or PackedMove.NONE when there are no more.
+     */
+    public int next() {
+        switch (stage) {
+            case TT_MOVE:
+                stage = GENERATE_NOISY;
+
+                if (ttMove != PackedMove.NONE && game.isLegalMove(ttMove)) {
+                    generated++;
+                    return ttMove;
+                }
+
+                ttMove = PackedMove.NONE;
+                // fall through
+            case GENERATE_NOISY:
+                game.generateMoves(noisy, Board.NOISY_MOVES);
+                generated += noisy.size();
+                badNoisy.clear();
+
+                for (int i = 0; i < noisy.size(); i++)
+                    scores[i] = MvvLvaMoveComparator.score(noisy.get(i));
+
+                index = 0;
+                stage = GOOD_NOISY;
+                // fall through
+            case GOOD_NOISY:
+                while (index < noisy.size()) {
+                    int move = pickBest(noisy, scores, index++);
+
+                    if (PackedMove.sameMove(move, ttMove))
+                        continue;
+
+                    if (deferLosingCaptures && PackedMove.isCapture(move) && !game.getBoard().seeGe(move, 0)) {
+                        badNoisy.add(move);
+                        continue;
+                    }
+
+                    return move;
+                }
+
+                if (noisyOnly) {
+                    index = 0;
+                    stage = BAD_NOISY;
+                    return next();
+                }
+
+                stage = GENERATE_QUIETS;
+                // fall through
+            case GENERATE_QUIETS:
+                game.generateMoves(quiets, Board.QUIET_MOVES);
+                generated += quiets.size();
+
+                if (history != null) {
+                    for (int i = 0; i < quiets.size(); i++)
+                        quietScores[i] = history.score(quiets.get(i), previousMove, ply);
+                }
+
+                index = 0;
+                stage = QUIETS;
+                // fall through
+            case QUIETS:
+                while (index < quiets.size()) {
+                    int move = history == null ? quiets.get(index++) : pickBest(quiets, quietScores, index++);
+
+                    if (!PackedMove.sameMove(move, ttMove))
+                        return move;
+                }
+
+                index = 0;
+                stage = BAD_NOISY;
+                // fall through
+            case BAD_NOISY:
+                if (index < badNoisy.size())
+                    return badNoisy.get(index++);
+
+                stage = DONE;
+                // fall through
+            default:
+                return PackedMove.NONE;
+        }
+    }
+
+    public void setDeferLosingCaptures(boolean enabled) {
+        this.deferLosingCaptures = enabled;
+    }
+
+    /*
+     * The number of moves generated so far at this node (including a legal hash move).
+     */
+    public int generatedCount() {
+        return generated;
+    }
+
+    // selection sort step: swap the highest scoring remaining move into position from and return it
+    private static int pickBest(MoveBuffer moves, int[] scores, int from) {
+        int best = from;
+
+        for (int i = from + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best])
+                best = i;
+        }
+
+        if (best != from) {
+            moves.swap(from, best);
+
+            int score = scores[from];
+            scores[from] = scores[best];
+            scores[best] = score;
+        }
+
+        return moves.get(from);
+    }
+}
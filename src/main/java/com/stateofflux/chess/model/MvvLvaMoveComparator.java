@@ -7,6 +7,13 @@ import java.io.Serializable;
 // Most Valuable Victim - Least Valuable Aggressor
 // https://www.chessprogramming.org/MVV-LVA
 public class MvvLvaMoveComparator implements java.util.Comparator<Move>, Serializable {
+    private static final int[] PIECE_VALUES = new int[Piece.SIZE];
+
+    static {
+        for (Piece piece : Piece.values())
+            PIECE_VALUES[piece.getIndex()] = pieceToValue(piece);
+    }
+
     static int pieceToValue(Piece piece) {
         if(piece == null)
             return 0;
@@ -22,6 +29,61 @@ public class MvvLvaMoveComparator implements java.util.Comparator<Move>, Seriali
         };
     }
 
+    /*
+     * The ordering key for a packed move: captures score above every quiet move, and quiet moves all score 0, so
+     * a stable sort by descending score orders moves exactly as compare() does.
+     */
+    public static int score(int move) {
+        if(!PackedMove.isCapture(move))
+            return 0;
+
+        return PIECE_VALUES[PackedMove.capturedIndex(move)] * 100 + (20_000 / PIECE_VALUES[PackedMove.pieceIndex(move)]);
+    }
+
+    // the value of the piece a packed move captures (0 for a non-capture)
+    public static int capturedValue(int move) {
+        return PIECE_VALUES[PackedMove.capturedIndex(move)];
+    }
+
+    /*
+     * A capture of a less valuable piece, which can lose material if the victim is defended.  King captures are
+     * never losing, as the king can only take an undefended piece.
+     */
+    public static boolean isLosingCapture(int move) {
+        if(!PackedMove.isCapture(move))
+            return false;
+
+        int attacker = PIECE_VALUES[PackedMove.pieceIndex(move)];
+
+        return attacker != PIECE_VALUES[Piece.WHITE_KING.getIndex()] && attacker > PIECE_VALUES[PackedMove.capturedIndex(move)];
+    }
+
+    /*
+     * Stable sort of the buffer by descending score.  Move lists are short, so an insertion sort is fast and,
+     * unlike a general sort, doesn't allocate.
+     */
+    public static void sort(MoveBuffer moves, int[] scores) {
+        int size = moves.size();
+
+        for (int i = 0; i < size; i++)
+            scores[i] = score(moves.get(i));
+
+        for (int i = 1; i < size; i++) {
+            int move = moves.get(i);
+            int score = scores[i];
+            int j = i - 1;
+
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
     @Override
     public int compare(Move m1, Move m2) {
         // no captures
@@ -0,0 +1,124 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.CastlingHelper;
+import com.stateofflux.chess.model.pieces.Piece;
+
+/*
+ * A move packed into a single int so the move generators and the search can work with primitive arrays
+ * (see MoveBuffer) instead of allocating a Move object per generated move.  Move remains the object
+ * view used at the edges (UCI, SAN, tests).
+ *
+ *                                      offset
+ * from             - 0-63  -  6 bits -  0
+ * to               - 0-63  -  6 bits -  6
+ * piece            - 0-12  -  4 bits - 12
+ * captured piece   - 0-12  -  4 bits - 16   (Piece.EMPTY when nothing is captured)
+ * promotion piece  - 0-12  -  4 bits - 20   (Piece.EMPTY when not promoting)
+ * capture          - 0-1   -  1 bit  - 24
+ * castling         - 0-1   -  1 bit  - 25
+ * en passant take  - 0-1   -  1 bit  - 26
+ * en passant push  - 0-1   -  1 bit  - 27   (a double push that may create an en passant target)
+ *                            -------
+ *                            28 bits
+ *
+ * A from/to pair can never be equal, so 0 is never a valid move and is used as NONE.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final int PROMOTION_SHIFT = 20;
+
+    public static final int CAPTURE_FLAG = 1 << 24;
+    public static final int CASTLING_FLAG = 1 << 25;
+    public static final int EN_PASSANT_CAPTURE_FLAG = 1 << 26;
+    public static final int EN_PASSANT_PUSH_FLAG = 1 << 27;
+
+    private static final int EMPTY_INDEX = Piece.EMPTY.getIndex();
+    private static final int NO_CAPTURE_OR_PROMOTION = (EMPTY_INDEX << CAPTURED_SHIFT) | (EMPTY_INDEX << PROMOTION_SHIFT);
+
+    private PackedMove() { }
+
+    // --------------------------- Encoding ---------------------------
+    public static int quiet(int pieceIndex, int from, int to) {
+        return from | (to << TO_SHIFT) | (pieceIndex << PIECE_SHIFT) | NO_CAPTURE_OR_PROMOTION;
+    }
+
+    public static int capture(int pieceIndex, int from, int to, int capturedIndex) {
+        return from | (to << TO_SHIFT) | (pieceIndex << PIECE_SHIFT) |
+            (capturedIndex << CAPTURED_SHIFT) | (EMPTY_INDEX << PROMOTION_SHIFT) | CAPTURE_FLAG;
+    }
+
+    public static int encode(int pieceIndex, int from, int to, int capturedIndex, int promotionIndex, int flags) {
+        return from | (to << TO_SHIFT) | (pieceIndex << PIECE_SHIFT) |
+            (capturedIndex << CAPTURED_SHIFT) | (promotionIndex << PROMOTION_SHIFT) | flags;
+    }
+
+    public static int withPromotion(int move, int promotionIndex) {
+        return (move & ~(0xF << PROMOTION_SHIFT)) | (promotionIndex << PROMOTION_SHIFT);
+    }
+
+    // --------------------------- Decoding ---------------------------
+    public static int from(int move)           { return move & 0x3F; }
+    public static int to(int move)             { return (move >>> TO_SHIFT) & 0x3F; }
+    public static int pieceIndex(int move)     { return (move >>> PIECE_SHIFT) & 0xF; }
+    public static int capturedIndex(int move)  { return (move >>> CAPTURED_SHIFT) & 0xF; }
+    public static int promotionIndex(int move) { return (move >>> PROMOTION_SHIFT) & 0xF; }
+
+    public static Piece piece(int move)        { return Piece.getPieceByIndex(pieceIndex(move)); }
+    public static Piece captured(int move)     { return Piece.getPieceByIndex(capturedIndex(move)); }
+    public static Piece promotion(int move)    { return Piece.getPieceByIndex(promotionIndex(move)); }
+
+    public static boolean isCapture(int move)            { return (move & CAPTURE_FLAG) != 0; }
+    public static boolean isCastling(int move)           { return (move & CASTLING_FLAG) != 0; }
+    public static boolean isEnPassantCapture(int move)   { return (move & EN_PASSANT_CAPTURE_FLAG) != 0; }
+    public static boolean isEnPassantPush(int move)      { return (move & EN_PASSANT_PUSH_FLAG) != 0; }
+    public static boolean isPromoting(int move)          { return promotionIndex(move) != EMPTY_INDEX; }
+    public static boolean isQuiet(int move)              { return (move & CAPTURE_FLAG) == 0 && !isPromoting(move); }
+
+    // the square of the pawn removed by an en passant capture
+    public static int enPassantCaptureSquare(int move) {
+        int to = to(move);
+        return pieceIndex(move) == Piece.WHITE_PAWN.getIndex() ? to - 8 : to + 8;
+    }
+
+    // the en passant target a double push may create: the square the pawn passed over
+    public static int enPassantPushTarget(int move) {
+        return (from(move) + to(move)) >>> 1;
+    }
+
+    public static int castlingRookFrom(int move) {
+        return switch (to(move)) {
+            case CastlingHelper.WHITE_KING_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.WHITE_KING_SIDE_INITIAL_ROOK_LOCATION;
+            case CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.WHITE_QUEEN_SIDE_INITIAL_ROOK_LOCATION;
+            case CastlingHelper.BLACK_KING_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.BLACK_KING_SIDE_INITIAL_ROOK_LOCATION;
+            default -> CastlingHelper.BLACK_QUEEN_SIDE_INITIAL_ROOK_LOCATION;
+        };
+    }
+
+    public static int castlingRookTo(int move) {
+        return switch (to(move)) {
+            case CastlingHelper.WHITE_KING_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.WHITE_KING_SIDE_CASTLING_ROOK_LOCATION;
+            case CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.WHITE_QUEEN_SIDE_CASTLING_ROOK_LOCATION;
+            case CastlingHelper.BLACK_KING_SIDE_CASTLING_KING_LOCATION -> CastlingHelper.BLACK_KING_SIDE_CASTLING_ROOK_LOCATION;
+            default -> CastlingHelper.BLACK_QUEEN_SIDE_CASTLING_ROOK_LOCATION;
+        };
+    }
+
+    // two packed moves describe the same move if they share from, to and promotion
+    public static boolean sameMove(int a, int b) {
+        return ((a ^ b) & (0xFFF | (0xF << PROMOTION_SHIFT))) == 0;
+    }
+
+    // a null move (NONE) is "0000", as in UCI
+    public static String toLongSan(int move) {
+        if (move == NONE)
+            return "0000";
+
+        return FenString.locationToSquare(from(move)) +
+            FenString.locationToSquare(to(move)) +
+            (isPromoting(move) ? promotion(move).getPieceChar() : "");
+    }
+}
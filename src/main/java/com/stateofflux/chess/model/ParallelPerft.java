@@ -0,0 +1,119 @@
+package com.stateofflux.chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Perft across several threads.  The tree is split into ForkJoin tasks for the first splitDepth plies; below that
+ * each task counts its subtree with the ordinary single threaded Game.perft.  Idle workers steal queued subtrees,
+ * so uneven subtrees still keep every thread busy.
+ *
+ * A Game is mutable and not thread safe, so every task gets a Game.fork() of the position it is to count.
+ */
+public class ParallelPerft {
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+    private final int threads;
+    private final int splitDepth;
+
+    public ParallelPerft(int threads) {
+        this(threads, DEFAULT_SPLIT_DEPTH);
+    }
+
+    public ParallelPerft(int threads, int splitDepth) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+
+        this.threads = threads;
+        this.splitDepth = splitDepth;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /*
+     * Same result as game.perftAtRoot(depth): the node count below each root move, keyed by the move's long SAN.
+     * game is left as it was.
+     */
+    public SortedMap<String, Long> perftAtRoot(Game game, int depth) {
+        SortedMap<String, Long> perftResults = new TreeMap<>();
+        MoveBuffer moves = new MoveBuffer();
+        game.generateMoves(moves);
+
+        if (depth <= 1) {
+            for (int i = 0; i < moves.size(); i++)
+                perftResults.put(PackedMove.toLongSan(moves.get(i)), 1L);
+
+            return perftResults;
+        }
+
+        List<PerftTask> tasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++)
+            tasks.add(childTask(game, moves.get(i), depth - 1, splitDepth - 1));
+
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+        }
+
+        for (int i = 0; i < moves.size(); i++)
+            perftResults.put(PackedMove.toLongSan(moves.get(i)), tasks.get(i).join());
+
+        return perftResults;
+    }
+
+    public long perft(Game game, int depth) {
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            return pool.invoke(new PerftTask(game.fork(), depth, splitDepth));
+        }
+    }
+
+    private static PerftTask childTask(Game game, int move, int depth, int splitDepth) {
+        game.move(move);
+        PerftTask task = new PerftTask(game.fork(), depth, splitDepth);
+        game.undo();
+
+        return task;
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final Game game;
+        private final int depth;
+        private final int splitDepth;
+
+        PerftTask(Game game, int depth, int splitDepth) {
+            this.game = game;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitDepth <= 0 || depth <= 2)
+                return depth == 0 ? 1L : game.perft(depth);
+
+            MoveBuffer moves = new MoveBuffer();
+            game.generateMoves(moves);
+
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++)
+                tasks.add(childTask(game, moves.get(i), depth - 1, splitDepth - 1));
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks))
+                nodes += task.join();
+
+            return nodes;
+        }
+    }
+}
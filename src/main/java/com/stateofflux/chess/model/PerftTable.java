@@ -0,0 +1,69 @@
+package com.stateofflux.chess.model;
+
+import java.util.Arrays;
+
+/*
+ * A cache of perft subtree counts for Game.perft, keyed by the zobrist key and the remaining depth.
+ * https://www.chessprogramming.org/Perft#Hashing
+ *
+ * Laid out like TranspositionTable: parallel arrays indexed by the low bits of the key, a power of two entries,
+ * always replace.  A lost entry only costs the recount of its subtree.  The depth is mixed into the key, so one
+ * position at two depths lands in two different slots.
+ *
+ * The stored key is xor'd with the count, so a probe only hits when both longs were written together.  Threads
+ * can share a table (ParallelPerft does) without locks - a torn write just reads as a miss.
+ */
+public class PerftTable {
+    public static final int DEFAULT_SIZE_IN_MB = 64;
+
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;   // 2^64 / golden ratio - spreads small depths
+    private static final int ENTRY_SIZE_IN_BYTES = 16;           // a key and a count
+
+    private final long[] keys;
+    private final long[] counts;
+    private final int mask;
+
+    public PerftTable() {
+        this(DEFAULT_SIZE_IN_MB);
+    }
+
+    public PerftTable(int memoryUsageInMB) {
+        if (memoryUsageInMB < 1)
+            throw new IllegalArgumentException("perft table size must be at least 1 MB: " + memoryUsageInMB);
+
+        // round down to a power of two so the index is a mask rather than a modulo
+        int entries = Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE, (long) memoryUsageInMB * 1024 * 1024 / ENTRY_SIZE_IN_BYTES));
+
+        keys = new long[entries];
+        counts = new long[entries];
+        mask = entries - 1;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /*
+     * The node count below the position with this key at depth, or -1 if it isn't in the table.
+     */
+    public long get(long key, int depth) {
+        long k = key ^ (depth * DEPTH_MIX);
+        int index = (int) (k & mask);
+        long count = counts[index];
+
+        return (keys[index] ^ count) == k ? count : -1;
+    }
+
+    public void put(long key, int depth, long count) {
+        long k = key ^ (depth * DEPTH_MIX);
+        int index = (int) (k & mask);
+
+        counts[index] = count;
+        keys[index] = k ^ count;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(counts, 0L);
+    }
+}
@@ -24,7 +24,7 @@ public class TranspositionTable {
 
     private final long[] keys;
     private final long[] data;
-    private final long[] movesData;
+    private final int[] movesData;
     private final int mask;
     private final int maxEntries;  // number of entries
     private int activeEntries;
@@ -39,7 +39,11 @@ public class TranspositionTable {
 
     public record Entry(long key, int score, long best, NodeType nt, int depth, int age) {
         public Move getBestMove() {
-            return Move.buildFrom(best);
+            return Move.fromPacked(getPackedBestMove());
+        }
+
+        public int getPackedBestMove() {
+            return (int) best;
         }
     }
 
@@ -58,7 +62,7 @@ public class TranspositionTable {
         mask = maxEntries - 1; // m = n & (d - 1) will compute the modulo (base 2) where n -> numerator, d -> denominator, m is modulo.
         data = new long[maxEntries];
         keys = new long[maxEntries];
-        movesData = new long[maxEntries];
+        movesData = new int[maxEntries];
     }
 
     /*
@@ -74,7 +78,7 @@ public class TranspositionTable {
     public Entry get(long key, int ply) {
         long k = keys[Math.toIntExact(key & mask)];
         long d = data[Math.toIntExact(key & mask)];
-        long md = movesData[Math.toIntExact(key & mask)];
+        int md = movesData[Math.toIntExact(key & mask)];
         Entry e = buildEntry(key, d, md, ply);
 
         if ((k ^ d) == key) {
@@ -103,6 +107,10 @@ public class TranspositionTable {
     }
     */
     public boolean put(long key, int score, Move best, NodeType nodeType, int depth, int ply) {
+        return put(key, score, best.toPacked(), nodeType, depth, ply);
+    }
+
+    public boolean put(long key, int score, int best, NodeType nodeType, int depth, int ply) {
         Entry entry = get(key, ply);
         if(entry == null || depth > entry.depth || nodeType == NodeType.EXACT) {
             int newScore;
@@ -120,7 +128,7 @@ public class TranspositionTable {
             // reversing the xor is the original key, then it was the value inserted into the array.
             keys[index] = key ^ d;
             data[index] = d;
-            movesData[index] = best.toLong();
+            movesData[index] = best;
             activeEntries++;
 
             return true;
@@ -133,7 +141,7 @@ public class TranspositionTable {
         activeEntries = 0;
         Arrays.fill(data, 0L);
         Arrays.fill(keys, 0L);
-        Arrays.fill(movesData, 0L);
+        Arrays.fill(movesData, 0);
     }
 
     private long buildData(int score, int depth, NodeType nodeType) {
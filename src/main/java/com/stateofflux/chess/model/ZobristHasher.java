@@ -130,10 +130,9 @@ public class ZobristHasher {
     public long calculateFullZorbistKey(PlayerColor color, Board board) {
         long hash = getCastleRightsKey(board.getCastlingRights());
 
-        for (int i = 0; i < 64; i++) {
-            Piece piece = board.get(i);
-            if (piece != null && piece != Piece.EMPTY)
-                hash ^= getPieceSquareKey(piece, i);   // Need to know piece's index (ordinal number 0-12) and the square (0-63)
+        for (long pieces = board.getOccupied(); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
+            hash ^= getPieceSquareKey(board.get(i), i);   // Need to know piece's index (ordinal number 0-12) and the square (0-63)
         }
 
         hash ^= getSideKey(color);
@@ -37,7 +37,6 @@ public class KingMoves implements PieceMovesInterface {
     private final int location;
     private final boolean isWhite;
     private final long occupiedBoard;
-    private final int castlingRights;
 
     private long nonCaptureMoves;
     private long captureMoves;
@@ -46,7 +45,6 @@ public class KingMoves implements PieceMovesInterface {
         this.board = board;
         this.location = location;
         this.isWhite = (((1L << location) & board.getWhite()) != 0);
-        this.castlingRights = this.board.getCastlingRights();
         this.occupiedBoard = this.board.getOccupied();
 
         findCaptureAndNonCaptureMoves();
@@ -77,52 +75,64 @@ public class KingMoves implements PieceMovesInterface {
      * The king does not pass through or finish on a square that is attacked by an enemy piece.
      */
     protected void addCastlingMoves() {
-        if(this.castlingRights == 0)
-            return;
+        this.nonCaptureMoves |= castlingMoves(board, isWhite);
+    }
+
+    // the squares the king of the given colour can castle to.  Shared with Board's move generation, which takes
+    // the other moves straight from KING_MOVES.
+    public static long castlingMoves(Board board, boolean isWhite) {
+        int castlingRights = board.getCastlingRights();
+        long occupiedBoard = board.getOccupied();
+        long moves = 0L;
+
+        if(castlingRights == 0)
+            return moves;
 
         // king side - white
         if( isWhite &&
-            (this.castlingRights & CastlingHelper.CASTLING_WHITE_KING_SIDE) != 0 &&   // castling rights remain
+            (castlingRights & CastlingHelper.CASTLING_WHITE_KING_SIDE) != 0 &&   // castling rights remain
             (occupiedBoard & WHITE_KING_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&   // no pieces are blocking the castle
             !board.locationUnderAttack(PlayerColor.BLACK, 4) &&               // the king is not under attack
             !board.locationUnderAttack(PlayerColor.BLACK, 5) &&
             !board.locationUnderAttack(PlayerColor.BLACK, 6)                  // the king does not pass through a square that is attacked
         ) {
-            this.nonCaptureMoves |= (1L << 6);  // king can castle
+            moves |= (1L << 6);  // king can castle
         }
 
         // queen side - white
         if( isWhite &&
-            (this.castlingRights & CastlingHelper.CASTLING_WHITE_QUEEN_SIDE) != 0 &&   // castling rights remain
+            (castlingRights & CastlingHelper.CASTLING_WHITE_QUEEN_SIDE) != 0 &&   // castling rights remain
             (occupiedBoard & WHITE_QUEEN_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&   // no pieces are blocking the castle
             !board.locationUnderAttack(PlayerColor.BLACK, 4) &&                // the king is not under attack
             !board.locationUnderAttack(PlayerColor.BLACK, 3) &&
             !board.locationUnderAttack(PlayerColor.BLACK, 2)                  // the king does not pass through a square that is attacked
         ) {
-            this.nonCaptureMoves |= (1L << 2);  // king can castle
+            moves |= (1L << 2);  // king can castle
         }
 
         // king side - black
         if( !isWhite &&
-            (this.castlingRights & CastlingHelper.CASTLING_BLACK_KING_SIDE) != 0 &&   // castling rights remain
+            (castlingRights & CastlingHelper.CASTLING_BLACK_KING_SIDE) != 0 &&   // castling rights remain
             (occupiedBoard & BLACK_KING_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&   // no pieces are blocking the castle
             !board.locationUnderAttack(PlayerColor.WHITE, 60) &&              // the king is not under attack
             !board.locationUnderAttack(PlayerColor.WHITE, 61) &&
             !board.locationUnderAttack(PlayerColor.WHITE, 62)                 // the king does not pass through a square that is attacked
         ) {
-            this.nonCaptureMoves |= (1L << 62);  // king can castle
+            moves |= (1L << 62);  // king can castle
         }
 
         // queen side - black
         if( !isWhite &&
-            (this.castlingRights & CastlingHelper.CASTLING_BLACK_QUEEN_SIDE) != 0 &&   // castling rights remain
+            (castlingRights & CastlingHelper.CASTLING_BLACK_QUEEN_SIDE) != 0 &&   // castling rights remain
             (occupiedBoard & BLACK_QUEEN_SIDE_CASTLING_EMPTY_CHECK_BITBOARD) == 0 &&   // no pieces are blocking the castle
             !board.locationUnderAttack(PlayerColor.WHITE, 60) &&               // the king is not under attack
             !board.locationUnderAttack(PlayerColor.WHITE, 59) &&
             !board.locationUnderAttack(PlayerColor.WHITE, 58)                  // the king does not pass through a square that is attacked
         ) {
-            this.nonCaptureMoves |= (1L << 58);  // king can castle
+            moves |= (1L << 58);  // king can castle
         }
+
+        return moves;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package com.stateofflux.chess.model.pieces;
+
+import java.util.SplittableRandom;
+
+/*
+ * Offline search for the rook and bishop magic numbers used by StraightLineMoves.
+ * https://www.chessprogramming.org/Looking_for_Magics
+ *
+ * For each square it tries sparse random numbers until one maps every blocker arrangement of the square's mask to
+ * a table slot without a destructive collision (two arrangements with different attacks in one slot).  Collisions
+ * between arrangements that share their attacks are constructive, and are what makes it possible to index a square
+ * with fewer bits than its mask has.  With -reduce N the generator first tries the mask size less N bits (halving
+ * the square's table for each bit), falling back one bit at a time to the mask size, which always succeeds.
+ *
+ * Prints the magics and index bits as Java arrays for StraightLineMoves, followed by a table size report.
+ *
+ *   java -cp target/classes com.stateofflux.chess.model.pieces.MagicGenerator [-reduce N] [-attempts N] [-seed N]
+ */
+public class MagicGenerator {
+    private final SplittableRandom random;
+    private final long attempts;
+
+    public MagicGenerator(long seed, long attempts) {
+        this.random = new SplittableRandom(seed);
+        this.attempts = attempts;
+    }
+
+    public record Magic(long magic, int bits) {}
+
+    /*
+     * Search for a magic for square with the given number of index bits, or null if attempts run out.
+     */
+    public Magic find(int square, boolean rook, int bits) {
+        long mask = rook ? StraightLineMoves.rookMask(square) : StraightLineMoves.bishopMask(square);
+        int arrangements = 1 << Long.bitCount(mask);
+        long[] occupancies = new long[arrangements];
+        long[] attacks = new long[arrangements];
+
+        for (int i = 0; i < arrangements; i++) {
+            occupancies[i] = Long.expand(i, mask);
+            attacks[i] = rook ?
+                StraightLineMoves.calculateRookMoves(square, occupancies[i]) :
+                StraightLineMoves.calculateBishopMoves(square, occupancies[i]);
+        }
+
+        long[] table = new long[1 << bits];
+        int[] usedIn = new int[1 << bits];   // the attempt that last wrote each slot, so the table is never cleared
+
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+
+            // a magic that leaves few bits in the top byte spreads the arrangements poorly - skip it cheaply
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6)
+                continue;
+
+            if (fits(magic, bits, occupancies, attacks, table, usedIn, attempt))
+                return new Magic(magic, bits);
+        }
+
+        return null;
+    }
+
+    private static boolean fits(long magic, int bits, long[] occupancies, long[] attacks, long[] table, int[] usedIn, int attempt) {
+        for (int i = 0; i < occupancies.length; i++) {
+            int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+
+            if (usedIn[index] != attempt) {
+                usedIn[index] = attempt;
+                table[index] = attacks[i];
+            } else if (table[index] != attacks[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * The smallest table this generator can find for every square, trying up to reduce bits fewer than the mask.
+     */
+    public Magic[] generate(boolean rook, int reduce) {
+        Magic[] magics = new Magic[64];
+
+        for (int square = 0; square < 64; square++) {
+            int maskBits = Long.bitCount(rook ? StraightLineMoves.rookMask(square) : StraightLineMoves.bishopMask(square));
+
+            for (int bits = maskBits - reduce; magics[square] == null; bits++)
+                magics[square] = bits < maskBits ? find(square, rook, bits) : findExhaustively(square, rook, bits);
+        }
+
+        return magics;
+    }
+
+    // a magic at the full mask size always exists and is quickly found, so keep looking until there is one
+    private Magic findExhaustively(int square, boolean rook, int bits) {
+        Magic magic = null;
+
+        while (magic == null)
+            magic = find(square, rook, bits);
+
+        return magic;
+    }
+
+    public static long tableEntries(Magic[] magics) {
+        long entries = 0;
+
+        for (Magic magic : magics)
+            entries += 1L << magic.bits();
+
+        return entries;
+    }
+
+    public static void main(String[] args) {
+        int reduce = 0;
+        long attempts = 1_000_000L;
+        long seed = 2024L;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-reduce" -> reduce = Integer.parseInt(args[i + 1]);
+                case "-attempts" -> attempts = Long.parseLong(args[i + 1]);
+                case "-seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        MagicGenerator generator = new MagicGenerator(seed, attempts);
+        Magic[] rooks = generator.generate(true, reduce);
+        Magic[] bishops = generator.generate(false, reduce);
+
+        print("ROOK", rooks);
+        print("BISHOP", bishops);
+
+        long rookEntries = tableEntries(rooks);
+        long bishopEntries = tableEntries(bishops);
+
+        System.out.println();
+        System.out.printf("%-26s %10s %10s%n", "table", "entries", "KiB");
+        System.out.printf("%-26s %10d %10d%n", "rook, long[64][4096]", 64 * 4096, 64 * 4096 * 8 / 1024);
+        System.out.printf("%-26s %10d %10d%n", "bishop, long[64][1024]", 64 * 1024, 64 * 1024 * 8 / 1024);
+        System.out.printf("%-26s %10d %10d%n", "rook, flat", rookEntries, rookEntries * 8 / 1024);
+        System.out.printf("%-26s %10d %10d%n", "bishop, flat", bishopEntries, bishopEntries * 8 / 1024);
+    }
+
+    private static void print(String name, Magic[] magics) {
+        StringBuilder values = new StringBuilder();
+        StringBuilder bits = new StringBuilder();
+
+        for (int square = 0; square < 64; square++) {
+            values.append(square % 5 == 0 ? "\n        " : " ").append(String.format("0x%xL,", magics[square].magic()));
+            bits.append(square % 8 == 0 ? "\n        " : " ").append(magics[square].bits()).append(',');
+        }
+
+        System.out.printf("    private static final long[] %s_MAGIC = new long[]{%s%n    };%n", name, values);
+        System.out.printf("    private static final int[] %s_INDEX_BITS = new int[]{%s%n    };%n", name, bits);
+    }
+}
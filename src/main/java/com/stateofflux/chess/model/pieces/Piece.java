@@ -33,9 +33,14 @@ public enum Piece {
     public static final int SIZE;
     public static final int[] WHITE_INDEX;
     public static final int[] BLACK_INDEX;
+    private static final Piece[] BY_INDEX;
 
     static {
         SIZE = values().length;
+        BY_INDEX = new Piece[SIZE];
+        for (Piece piece : values())
+            BY_INDEX[piece.getIndex()] = piece;
+
         WHITE_INDEX = new int[] { 0, 1, 2, 3,  4,  5 };
         BLACK_INDEX = new int[] { 6, 7, 8, 9, 10, 11 };
     }
@@ -52,12 +57,10 @@ public enum Piece {
     public char getAlgebraicChar() { return Character.toUpperCase(this.pieceChar); }
 
     public static Piece getPieceByIndex(int index) {
-        for (Piece piece : Piece.values()) {
-            if (piece.getIndex() == index) {
-                return piece;
-            }
-        }
-        return EMPTY;
+        if (index < 0 || index >= SIZE)
+            return EMPTY;
+
+        return BY_INDEX[index];
     }
 
     public static Piece getPieceByPieceChar(String c) {
@@ -0,0 +1,96 @@
+package com.stateofflux.chess.model.pieces;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * How StraightLineMoves turns a square and an occupancy into rook and bishop attacks.
+ *
+ *   MAGIC - multiply by a magic number and shift to index the attack table.  Fast everywhere.
+ *   PEXT  - Long.compress(occupancy, mask) indexes a dense table.  The JIT compiles Long.compress to the BMI2 PEXT
+ *           instruction on x86, which is one cycle on Intel (Haswell on) and AMD Zen 3 on, but is microcoded and
+ *           slow on Zen 1/2, and is a software loop where there is no PEXT at all.
+ *
+ * The backend is chosen once, when StraightLineMoves is loaded: -Dchess.sliders=magic|pext forces one, otherwise
+ * (auto) PEXT is used only when the CPU is known to have a fast PEXT.
+ */
+public enum SliderBackend {
+    MAGIC,
+    PEXT;
+
+    public static final String PROPERTY = "chess.sliders";
+
+    private static final Logger logger = LoggerFactory.getLogger(SliderBackend.class);
+    private static final Path CPU_INFO = Path.of("/proc/cpuinfo");
+
+    static SliderBackend select() {
+        String requested = System.getProperty(PROPERTY, "auto").toLowerCase(Locale.ROOT);
+
+        SliderBackend backend = switch (requested) {
+            case "magic" -> MAGIC;
+            case "pext" -> PEXT;
+            default -> hasFastPext() ? PEXT : MAGIC;
+        };
+
+        logger.atDebug().log("slider backend: {} ({}={})", backend, PROPERTY, requested);
+        return backend;
+    }
+
+    /*
+     * Java has no CPUID, so read the flags the kernel reports.  Anything we can't confirm falls back to magics.
+     */
+    static boolean hasFastPext() {
+        String arch = System.getProperty("os.arch", "");
+        if (!arch.equals("amd64") && !arch.equals("x86_64"))
+            return false;
+
+        try {
+            return hasFastPext(Files.readAllLines(CPU_INFO));
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    // package private for testing - cpuInfo is the contents of /proc/cpuinfo
+    static boolean hasFastPext(List<String> cpuInfo) {
+        boolean bmi2 = false;
+        boolean amd = false;
+        int family = 0;
+
+        for (String line : cpuInfo) {
+            if (line.isBlank())
+                break;   // the first processor is enough
+
+            int colon = line.indexOf(':');
+            if (colon < 0)
+                continue;
+
+            String key = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+
+            switch (key) {
+                case "flags" -> bmi2 = List.of(value.split("\\s+")).contains("bmi2");
+                case "vendor_id" -> amd = value.equals("AuthenticAMD");
+                case "cpu family" -> family = parseFamily(value);
+                default -> { }
+            }
+        }
+
+        // AMD family 0x17 (Zen 1 and 2) implements PEXT in microcode, tens of cycles per instruction
+        return bmi2 && !(amd && family < 0x19);
+    }
+
+    private static int parseFamily(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
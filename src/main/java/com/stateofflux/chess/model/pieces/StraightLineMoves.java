@@ -6,7 +6,6 @@ import com.stateofflux.chess.model.Direction;
 public abstract class StraightLineMoves extends PieceMoves {
 
     private static final long[] ROOK_MASKS = new long[64];
-    private static final long[][] ROOK_TABLE = new long[64][4096];
     private static final long[] ROOK_MAGIC = new long[]{
         0xa8002c000108020L, 0x6c00049b0002001L, 0x100200010090040L, 0x2480041000800801L, 0x280028004000800L,
         0x900410008040022L, 0x280020001001080L, 0x2880002041000080L, 0xa000800080400034L, 0x4808020004000L,
@@ -33,7 +32,6 @@ public abstract class StraightLineMoves extends PieceMoves {
         12, 11, 11, 11, 11, 11, 11, 12
     };
     private static final long[] BISHOP_MASKS = new long[64];
-    private static final long[][] BISHOP_TABLE = new long[64][1024];
     private static final long[] BISHOP_MAGIC = new long[]{
         0x89a1121896040240L, 0x2004844802002010L, 0x2068080051921000L, 0x62880a0220200808L, 0x4042004000000L,
         0x100822020200011L, 0xc00444222012000aL, 0x28808801216001L, 0x400492088408100L, 0x201c401040c0084L,
@@ -60,6 +58,17 @@ public abstract class StraightLineMoves extends PieceMoves {
         6, 5, 5, 5, 5, 5, 5, 6
     };
 
+    /*
+     * "Fancy" magics: each square's attacks take only 2^INDEX_BITS entries of one flat table, starting at the
+     * square's offset, rather than a fixed 4096 (rook) or 1024 (bishop) entry row per square.  The rook table
+     * shrinks from 2 MB to 800 KB and the bishop table from 512 KB to 41 KB, so far more of them stays in cache.
+     * MagicGenerator searches for the magic numbers and reports the table sizes.
+     */
+    private static final int[] ROOK_OFFSETS = offsets(ROOK_INDEX_BITS);
+    private static final long[] ROOK_TABLE = new long[ROOK_OFFSETS[64]];
+    private static final int[] BISHOP_OFFSETS = offsets(BISHOP_INDEX_BITS);
+    private static final long[] BISHOP_TABLE = new long[BISHOP_OFFSETS[64]];
+
     static {
         initializeBishopMasks();
         initializeRookMasks();
@@ -68,6 +77,69 @@ public abstract class StraightLineMoves extends PieceMoves {
         initializeRookMagic();
     }
 
+    // chosen once; a static final lets the JIT drop the branch in getRookAttacks/getBishopAttacks
+    public static final SliderBackend BACKEND = SliderBackend.select();
+    private static final boolean USE_PEXT = BACKEND == SliderBackend.PEXT;
+
+    /*
+     * Dense tables for the PEXT backend: entry i of a square's table holds the attacks for the occupancy whose
+     * masked bits, compressed, read i.  Built on first use, so the magic backend never pays for them.
+     */
+    private static final class PextTables {
+        static final int[] ROOK_OFFSETS = offsets(maskBits(ROOK_MASKS));
+        static final long[] ROOK = new long[ROOK_OFFSETS[64]];
+        static final int[] BISHOP_OFFSETS = offsets(maskBits(BISHOP_MASKS));
+        static final long[] BISHOP = new long[BISHOP_OFFSETS[64]];
+
+        static {
+            for (int location = 0; location < 64; location++) {
+                for (int index = 0; index < ROOK_OFFSETS[location + 1] - ROOK_OFFSETS[location]; index++)
+                    ROOK[ROOK_OFFSETS[location] + index] = calculateRookMoves(location, Long.expand(index, ROOK_MASKS[location]));
+
+                for (int index = 0; index < BISHOP_OFFSETS[location + 1] - BISHOP_OFFSETS[location]; index++)
+                    BISHOP[BISHOP_OFFSETS[location] + index] = calculateBishopMoves(location, Long.expand(index, BISHOP_MASKS[location]));
+            }
+        }
+
+        private static int[] maskBits(long[] masks) {
+            int[] bits = new int[masks.length];
+
+            for (int location = 0; location < masks.length; location++)
+                bits[location] = Long.bitCount(masks[location]);
+
+            return bits;
+        }
+    }
+
+    // offsets[i] is where square i's entries start in a flat table; offsets[64] is the table's size
+    private static int[] offsets(int[] indexBits) {
+        int[] offsets = new int[65];
+
+        for (int location = 0; location < 64; location++)
+            offsets[location + 1] = offsets[location] + (1 << indexBits[location]);
+
+        return offsets;
+    }
+
+    /*
+     * The size of the rook and bishop attack tables, in bytes, for a backend.
+     */
+    public static long tableBytes(SliderBackend backend) {
+        int entries = backend == SliderBackend.PEXT ?
+            PextTables.ROOK.length + PextTables.BISHOP.length :
+            ROOK_TABLE.length + BISHOP_TABLE.length;
+
+        return entries * (long) Long.BYTES;
+    }
+
+    static long rookMask(int location) {
+        return ROOK_MASKS[location];
+    }
+
+    static long bishopMask(int location) {
+        return BISHOP_MASKS[location];
+    }
+
     protected StraightLineMoves(Board board, int location) {
         super(board, location);
     }
@@ -94,13 +166,13 @@ public abstract class StraightLineMoves extends PieceMoves {
                 long blockers = getBlockersFromIndex(blockerIndex, BISHOP_MASKS[location]);
                 int key = (int) ((blockers * BISHOP_MAGIC[location]) >>> (64 - BISHOP_INDEX_BITS[location]));
 
-                BISHOP_TABLE[location][key] = calculateBishopMoves(location, blockers);
+                BISHOP_TABLE[BISHOP_OFFSETS[location] + key] = calculateBishopMoves(location, blockers);
             }
         }
     }
 
     // good
-    private static long calculateBishopMoves(int square, long blockers) {
+    static long calculateBishopMoves(int square, long blockers) {
         long attacks = 0L;
 
         // North West
@@ -130,11 +202,19 @@ public abstract class StraightLineMoves extends PieceMoves {
         return attacks;
     }
 
-    // good
     public static long getBishopAttacks(int location, long blockers) {
+        return USE_PEXT ? getBishopAttacksPext(location, blockers) : getBishopAttacksMagic(location, blockers);
+    }
+
+    public static long getBishopAttacksPext(int location, long blockers) {
+        return PextTables.BISHOP[PextTables.BISHOP_OFFSETS[location] + (int) Long.compress(blockers, BISHOP_MASKS[location])];
+    }
+
+    // good
+    public static long getBishopAttacksMagic(int location, long blockers) {
         blockers &= BISHOP_MASKS[location];
         int key = (int) ((blockers * BISHOP_MAGIC[location]) >>> (64 - BISHOP_INDEX_BITS[location]));
-        return BISHOP_TABLE[location][key];
+        return BISHOP_TABLE[BISHOP_OFFSETS[location] + key];
     }
 
     private static void initializeRookMasks() {
@@ -154,12 +234,12 @@ public abstract class StraightLineMoves extends PieceMoves {
             for (int blockerIndex = 0; blockerIndex < (1 << ROOK_INDEX_BITS[location]); blockerIndex++) {
                 long blockers = getBlockersFromIndex(blockerIndex, ROOK_MASKS[location]);
                 int key = (int) ((blockers * ROOK_MAGIC[location]) >>> (64 - ROOK_INDEX_BITS[location]));
-                ROOK_TABLE[location][key] = StraightLineMoves.calculateRookMoves(location, blockers);
+                ROOK_TABLE[ROOK_OFFSETS[location] + key] = StraightLineMoves.calculateRookMoves(location, blockers);
             }
         }
     }
 
-    private static long calculateRookMoves(int square, long blockers) {
+    static long calculateRookMoves(int square, long blockers) {
         long attacks = 0L;
 
         // North
@@ -190,8 +270,16 @@ public abstract class StraightLineMoves extends PieceMoves {
     }
 
     public static long getRookAttacks(int square, long blockers) {
+        return USE_PEXT ? getRookAttacksPext(square, blockers) : getRookAttacksMagic(square, blockers);
+    }
+
+    public static long getRookAttacksPext(int square, long blockers) {
+        return PextTables.ROOK[PextTables.ROOK_OFFSETS[square] + (int) Long.compress(blockers, ROOK_MASKS[square])];
+    }
+
+    public static long getRookAttacksMagic(int square, long blockers) {
         blockers &= ROOK_MASKS[square];
         int key = (int) ((blockers * ROOK_MAGIC[square]) >>> (64 - ROOK_INDEX_BITS[square]));
-        return ROOK_TABLE[square][key];
+        return ROOK_TABLE[ROOK_OFFSETS[square] + key];
     }
 }
\ No newline at end of file
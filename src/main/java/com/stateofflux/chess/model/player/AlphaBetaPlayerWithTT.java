@@ -21,16 +21,73 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
 
     private static final long DEFAULT_TIME_ALLOCATION = TimeUnit.MINUTES.toNanos(5);
     private static final long DEFAULT_INCREMENT_ALLOCATION = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_PLY = 128;
+    private static final int DELTA_MARGIN = 200;   // centipawns a capture may gain beyond the victim's value
+    private static final int MATE_BOUND = Evaluator.MATE_VALUE - MAX_PLY;   // scores beyond this are mates
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_VERIFICATION_DEPTH = 7;   // verify null-move cutoffs from this depth
+    private static final int ASPIRATION_MIN_DEPTH = 4;   // shallower iterations are cheap and their scores jumpy
+    private static final int ASPIRATION_WINDOW = 35;     // centipawns either side of the last iteration's score
+    private static final int ASPIRATION_MAX = 1000;      // a window wider than this is opened fully
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 6;
+    private static final int RAZORING_MAX_DEPTH = 2;
+    private static final int FUTILITY_MAX_DEPTH = 3;
+    private static final int LATE_MOVE_PRUNING_MAX_DEPTH = 3;
+    private static final int NOT_EVALUATED = Integer.MIN_VALUE;   // the node's static evaluation hasn't been needed yet
+
+    // forward pruning margins, in centipawns per ply of remaining depth, and the late move pruning move count
+    public static final int DEFAULT_REVERSE_FUTILITY_MARGIN = 80;
+    public static final int DEFAULT_RAZORING_MARGIN = 600;
+    public static final int DEFAULT_FUTILITY_MARGIN = 150;
+    public static final int DEFAULT_LATE_MOVE_PRUNING_COUNT = 8;
+    private static final int LMR_MIN_MOVES = 3;   // moves searched at full depth before any is reduced
+
+    // late move reductions by remaining depth and move number: 0.75 + ln(depth) * ln(moves) / 2.25, in plies
+    private static final int[][] REDUCTIONS = new int[MAX_PLY][MoveBuffer.DEFAULT_CAPACITY];
+
+    static {
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            for (int moves = 1; moves < MoveBuffer.DEFAULT_CAPACITY; moves++)
+                REDUCTIONS[depth][moves] = (int) (0.75 + Math.log(depth) * Math.log(moves) / 2.25);
+        }
+    }
 
     private TranspositionTable tt;
     private int tableHits;
     private final Timer timer;
     private long increment;
     private boolean timedOut;
-    private Move lastMove;
     private List<Move> principalVariation = new ArrayList<>();
     private List<Move> rootBestMoves = new ArrayList<>();   // equal-scoring root moves of the current search
     private boolean hashMoveOrdering = true;
+    private boolean quietMoveOrdering = true;
+    private boolean deferLosingCaptures = false;
+    private boolean drawDetection = true;
+    private boolean quiescence = true;
+    private boolean nullMovePruning = true;
+    private boolean principalVariationSearch = true;
+    private boolean lateMoveReductions = true;
+    private boolean aspirationWindows = true;
+    private boolean reverseFutilityPruning = true;
+    private boolean razoring = true;
+    private boolean futilityPruning = true;
+    private boolean lateMovePruning = true;
+    private int reverseFutilityMargin = DEFAULT_REVERSE_FUTILITY_MARGIN;
+    private int razoringMargin = DEFAULT_RAZORING_MARGIN;
+    private int futilityMargin = DEFAULT_FUTILITY_MARGIN;
+    private int lateMovePruningCount = DEFAULT_LATE_MOVE_PRUNING_COUNT;
+    private int nullMoveMinPly;     // no null moves above this ply while a null-move cutoff is being verified
+    private long quiescenceNodes;   // positions reached by the quiescence search, not counted in nodesVisited
+    private int selectiveDepth;     // the deepest ply reached, quiescence included
+    private int aspirationFailLows; // root searches that failed low on the aspiration window and were searched again
+
+    // one staged move picker per ply, reused across nodes so the search doesn't allocate move lists
+    private final MovePicker[] movePickers = new MovePicker[MAX_PLY];
+
+    // killers, counter moves and history for ordering quiet moves, and the quiet moves searched so far at each ply
+    private final HistoryTable history = new HistoryTable(MAX_PLY);
+    private final int[][] quietsSearched = new int[MAX_PLY][MoveBuffer.DEFAULT_CAPACITY];
 
     public AlphaBetaPlayerWithTT(PlayerColor color, Evaluator evaluator) {
         this(color, evaluator, DEFAULT_TIME_ALLOCATION);
@@ -67,7 +124,12 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
     public void reset() {
         super.reset();
         tableHits = 0;
+        quiescenceNodes = 0;
+        selectiveDepth = 0;
+        aspirationFailLows = 0;
+        nullMoveMinPly = 0;
         tt.clear();
+        history.clear();
     }
 
     @Override
@@ -90,11 +152,15 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
          xml.atDebug().log("<chess player=\"{}\" search-depth=\"{}\" fen-string=\"{}\">", game.getActivePlayerColor(), maxDepth, game.asFen());
 
         // Iterative Deepening loop
+        int previousScore = 0;
         for (int depth = 1; depth <= maxDepth && !timedOut; depth++) {
             xml.atDebug().log("<iteration depth=\"{}\">", depth);
 
             List<Move> currentVariation = new ArrayList<>();
-            int score = alphaBeta(game, depth, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, currentVariation);
+            int score = aspirationWindows && depth >= ASPIRATION_MIN_DEPTH && Math.abs(previousScore) < MATE_BOUND
+                ? aspirationSearch(game, depth, previousScore, currentVariation)
+                : alphaBeta(game, depth, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, currentVariation);
+            previousScore = score;
 
             // throw away timed out values.  Is there a way to use them?
             if (!currentVariation.isEmpty() && !timedOut) {
@@ -117,15 +183,8 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
             );
             xml.atDebug().log("</iteration>");
 
-            uci_logger.atInfo().log("info depth {} score {} nodes {} nps {} hashfull {} time {} pv {}",
-                depth,
-                score,
-                getNodesVisited(),
-                getNodesVisited() * 1000L / (TimeUnit.NANOSECONDS.toMillis(timer.incrementTimeUsed()) + 1),
-                tt.getHashfull(),
-                TimeUnit.NANOSECONDS.toMillis(timer.incrementTimeUsed()),
-                currentVariation.stream().map(Move::toLongSan).collect(Collectors.joining(" "))
-            );
+            logSearchInfo(depth, score, "", currentVariation);
+            uci_logger.atInfo().log("info string nodes {} quiescence nodes {}", getNodesVisited(), quiescenceNodes);
         }
         xml.atDebug().log("</chess>");
 
@@ -143,6 +202,57 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
         return bestVariation.get(0);
     }
 
+    /*
+     * Aspiration windows: the score of the next iteration is usually close to the last, so search a narrow window
+     * around it.  A narrower window cuts off more, but a score outside it is only a bound.  On a fail low (score at
+     * or below alpha) or fail high (at or above beta) the failing side of the window is widened - twice as far each
+     * time, and all the way once that passes ASPIRATION_MAX - and the depth searched again.  Each bound is reported
+     * to the GUI as it is found.
+     *
+     * https://www.chessprogramming.org/Aspiration_Windows
+     */
+    private int aspirationSearch(Game game, int depth, int previousScore, List<Move> variation) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = previousScore - delta;
+        int beta = previousScore + delta;
+
+        while (true) {
+            variation.clear();
+            int score = alphaBeta(game, depth, alpha, beta, 0, variation);
+
+            if (timedOut || (score > alpha && score < beta))
+                return score;
+
+            delta *= 2;
+
+            if (score <= alpha) {
+                aspirationFailLows++;
+                logSearchInfo(depth, score, " upperbound", variation);
+                alpha = delta > ASPIRATION_MAX ? Evaluator.MIN_VALUE : Math.max(score - delta, Evaluator.MIN_VALUE);
+            } else {
+                logSearchInfo(depth, score, " lowerbound", variation);
+                beta = delta > ASPIRATION_MAX ? Evaluator.MAX_VALUE : Math.min(score + delta, Evaluator.MAX_VALUE);
+            }
+        }
+    }
+
+    // info depth 10 seldepth 14 score 27 nodes 144979 nps 2163865 hashfull 54 time 67 pv e2e4 d7d5 ...
+    // bound is "", " lowerbound" or " upperbound"
+    private void logSearchInfo(int depth, int score, String bound, List<Move> variation) {
+        long totalNodes = getNodesVisited() + quiescenceNodes;
+        uci_logger.atInfo().log("info depth {} seldepth {} score {}{} nodes {} nps {} hashfull {} time {} pv {}",
+            depth,
+            selectiveDepth,
+            score,
+            bound,
+            totalNodes,
+            totalNodes * 1000L / (TimeUnit.NANOSECONDS.toMillis(timer.incrementTimeUsed()) + 1),
+            tt.getHashfull(),
+            TimeUnit.NANOSECONDS.toMillis(timer.incrementTimeUsed()),
+            variation.stream().map(Move::toLongSan).collect(Collectors.joining(" "))
+        );
+    }
+
     /** The principal variation found by the most recent search. */
     public List<Move> getPrincipalVariation() {
         return principalVariation;
@@ -157,6 +267,170 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
         return hashMoveOrdering;
     }
 
+    /** Order quiet moves by killers, counter moves and history (on by default). Off, they are searched in generation order. */
+    public void setQuietMoveOrdering(boolean enabled) {
+        this.quietMoveOrdering = enabled;
+    }
+
+    public boolean isQuietMoveOrdering() {
+        return quietMoveOrdering;
+    }
+
+    /** Search losing captures after the quiet moves (off by default). See MovePicker. */
+    public void setDeferLosingCaptures(boolean enabled) {
+        this.deferLosingCaptures = enabled;
+    }
+
+    public boolean isDeferLosingCaptures() {
+        return deferLosingCaptures;
+    }
+
+    /** Resolve captures below the horizon with a quiescence search (on by default). Off, the leaves are evaluated as they stand. */
+    public void setQuiescence(boolean enabled) {
+        this.quiescence = enabled;
+    }
+
+    public boolean isQuiescence() {
+        return quiescence;
+    }
+
+    /** Try passing before searching the moves, and cut off if even that fails high (on by default). */
+    public void setNullMovePruning(boolean enabled) {
+        this.nullMovePruning = enabled;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    /** Search every move after the first with a null window, and again with the full window only if it beats alpha (on by default). */
+    public void setPrincipalVariationSearch(boolean enabled) {
+        this.principalVariationSearch = enabled;
+    }
+
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+
+    /** Search late quiet moves to a reduced depth, and again to the full depth only if they beat alpha (on by default). */
+    public void setLateMoveReductions(boolean enabled) {
+        this.lateMoveReductions = enabled;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    /** Search each iteration from depth 4 with a narrow window around the last iteration's score (on by default). */
+    public void setAspirationWindows(boolean enabled) {
+        this.aspirationWindows = enabled;
+    }
+
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    /** Cut off a shallow non-PV node whose static evaluation beats beta by a margin per ply (on by default). */
+    public void setReverseFutilityPruning(boolean enabled) {
+        this.reverseFutilityPruning = enabled;
+    }
+
+    public boolean isReverseFutilityPruning() {
+        return reverseFutilityPruning;
+    }
+
+    /** Drop a shallow non-PV node far below alpha into the quiescence search (on by default). */
+    public void setRazoring(boolean enabled) {
+        this.razoring = enabled;
+    }
+
+    public boolean isRazoring() {
+        return razoring;
+    }
+
+    /** Skip quiet moves at shallow non-PV nodes whose static evaluation can't reach alpha (on by default). */
+    public void setFutilityPruning(boolean enabled) {
+        this.futilityPruning = enabled;
+    }
+
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    /** Skip the late quiet moves at shallow non-PV nodes (on by default). */
+    public void setLateMovePruning(boolean enabled) {
+        this.lateMovePruning = enabled;
+    }
+
+    public boolean isLateMovePruning() {
+        return lateMovePruning;
+    }
+
+    /** Centipawns per ply of remaining depth by which the static evaluation must beat beta for reverse futility. */
+    public void setReverseFutilityMargin(int margin) {
+        this.reverseFutilityMargin = margin;
+    }
+
+    public int getReverseFutilityMargin() {
+        return reverseFutilityMargin;
+    }
+
+    /** Centipawns per ply of remaining depth by which the static evaluation must miss alpha for razoring. */
+    public void setRazoringMargin(int margin) {
+        this.razoringMargin = margin;
+    }
+
+    public int getRazoringMargin() {
+        return razoringMargin;
+    }
+
+    /** Centipawns per ply of remaining depth a quiet move may gain before futility pruning gives up on it. */
+    public void setFutilityMargin(int margin) {
+        this.futilityMargin = margin;
+    }
+
+    public int getFutilityMargin() {
+        return futilityMargin;
+    }
+
+    /** Moves searched at depth d before late move pruning skips quiet moves: this count plus d squared. */
+    public void setLateMovePruningCount(int count) {
+        this.lateMovePruningCount = count;
+    }
+
+    public int getLateMovePruningCount() {
+        return lateMovePruningCount;
+    }
+
+    // what the search has learnt about quiet moves, for tests
+    HistoryTable getHistoryTable() {
+        return history;
+    }
+
+    // how often the most recent search failed low on an aspiration window, for tests
+    int getAspirationFailLows() {
+        return aspirationFailLows;
+    }
+
+    /** Positions visited by the quiescence search in the most recent search; getNodesVisited() excludes them. */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /** The deepest ply the most recent search reached, quiescence included. */
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    /** Score repetitions and the 50-move rule as draws inside the search (on by default). */
+    public void setDrawDetection(boolean enabled) {
+        this.drawDetection = enabled;
+    }
+
+    public boolean isDrawDetection() {
+        return drawDetection;
+    }
+
     /*
      * The pseudocode that adds transposition table functions to negamax with alpha/beta pruning is given as follows
      *   -> https://en.wikipedia.org/wiki/Negamax
@@ -207,8 +481,31 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
      *    negamax(rootNode, depth, −∞, +∞, 1)
      */
     public int alphaBeta(Game game, int depth, int alpha, int beta, int ply, List<Move> principalVariation) {
+        return alphaBeta(game, depth, alpha, beta, ply, PackedMove.NONE, true, principalVariation);
+    }
+
+    /*
+     * previousMove is the move that led to this node: PackedMove.NONE at the root or after a null move.  It is
+     * passed down rather than kept in a field so that a child searched again (by PVS or LMR) still sees its own
+     * previous move, and not the last move made somewhere in the subtree of the first search.
+     *
+     * pvNode is set on the principal variation: the root, and the first move or a full-window re-search at a node
+     * that is on it.  Every other node is expected to fail low or high, so it may be reduced more and pruned.  It
+     * is tracked explicitly, not read off a null window, so forward pruning still works with principal variation
+     * search off, when every node is searched with the window it inherits.
+     */
+    private int alphaBeta(Game game, int depth, int alpha, int beta, int ply, int previousMove, boolean pvNode,
+                          List<Move> principalVariation) {
         int alphaOrig = alpha;
 
+        // A position repeated since the last irreversible move, or one past the 50-move rule, is a draw whatever
+        // lies below it.  This comes before the transposition table, whose entries don't know the path that led to
+        // the position.  Not at the root, which must return a move.
+        if (drawDetection && ply > 0 && isDrawnByRule(game)) {
+            principalVariation.clear();
+            return 0;
+        }
+
         // ply is the distance from the root of this search. It is used for mate-distance bookkeeping
         // in the transposition table and for terminal mate scoring; using the absolute game clock
         // here would bake the game's move number into stored mate scores and corrupt them.
@@ -245,64 +542,108 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
          */
         if (depth == 0) {
             principalVariation.clear();
-            int evaluatedScore = evaluate(game, ply);
-
-            xml.atDebug().log("<evaluate player=\"{}\" depth-remaining=\"{}\" alpha=\"{}\" beta=\"{}\" move=\"{}\" score=\"{}\"/>",
-                game.getActivePlayerColor(),
-                depth,
-                alpha,
-                beta,
-                lastMove.toLongSan(),
-                evaluatedScore
-            );
+            selectiveDepth = Math.max(selectiveDepth, ply);
+            int evaluatedScore = quiescence ? quiesce(game, alpha, beta, ply) : evaluate(game, ply);
+
+            if (xml.isDebugEnabled())
+                xml.atDebug().log("<evaluate player=\"{}\" depth-remaining=\"{}\" alpha=\"{}\" beta=\"{}\" move=\"{}\" score=\"{}\"/>",
+                    game.getActivePlayerColor(),
+                    depth,
+                    alpha,
+                    beta,
+                    PackedMove.toLongSan(previousMove),
+                    evaluatedScore
+                );
 
             return evaluatedScore;
         }
 
-        MoveList<Move> moves = game.generateMoves();
+        /*
+         * Forward pruning, at shallow nodes off the principal variation and out of check, guided by the static
+         * evaluation:
+         *
+         *   - reverse futility (static null move): an evaluation that beats beta by reverseFutilityMargin per ply of
+         *     depth is unlikely to fall below it in the plies left, so the node is cut off with the evaluation
+         *   - razoring: an evaluation razoringMargin per ply below alpha would take more than a quiet move to
+         *     recover, so only the captures are looked at (the quiescence search), and if they don't reach alpha
+         *     the node fails low
+         *   - futility and late move pruning: see the move loop
+         *
+         * None are tried near a mate score, where the margins mean nothing.
+         *
+         * https://www.chessprogramming.org/Reverse_Futility_Pruning
+         * https://www.chessprogramming.org/Razoring
+         */
+        boolean inCheck = game.isChecked();
+        boolean prunable = ply > 0 && !pvNode && !inCheck && Math.abs(beta) < MATE_BOUND;
+        int staticEval = prunable && depth <= REVERSE_FUTILITY_MAX_DEPTH ? evaluate(game, ply) : NOT_EVALUATED;
 
-        // node is terminal as there are no more moves: checkmate (side to move is in check) or
-        // stalemate (a draw). Score it here using the distance from the root so that shorter
-        // mates are preferred, rather than handing it to the material evaluator.
-        if (moves.isEmpty()) {
+        if (prunable && reverseFutilityPruning && depth <= REVERSE_FUTILITY_MAX_DEPTH
+            && staticEval - reverseFutilityMargin * depth >= beta) {
             principalVariation.clear();
-            int terminalScore = game.isChecked() ? -(Evaluator.MATE_VALUE - ply) : 0;
+            return staticEval;
+        }
 
-            xml.atDebug().log("<evaluate player=\"{}\" depth-remaining=\"{}\" alpha=\"{}\" beta=\"{}\" move=\"{}\" score=\"{}\"/>",
-                game.getActivePlayerColor(),
-                depth,
-                alpha,
-                beta,
-                lastMove.toLongSan(),
-                terminalScore
-            );
+        if (prunable && razoring && depth <= RAZORING_MAX_DEPTH && staticEval + razoringMargin * depth < alpha) {
+            int score = quiescence ? quiesce(game, alpha, beta, ply) : staticEval;
 
-            return terminalScore;
+            if (score <= alpha) {
+                principalVariation.clear();
+                return score;
+            }
         }
 
-        moves.sort(getComparator());
+        if (nullMovePruning && canTryNullMove(game, depth, beta, ply, previousMove, staticEval)) {
+            int score = nullMoveSearch(game, depth, beta, ply, previousMove);
+
+            if (score >= beta)
+                return score;
+        }
 
         // Hash-move ordering: search the transposition table's stored best move first. This is the
-        // main payoff of the TT for move ordering. Matching against the generated move list also
-        // validates the move, so a garbage move from a key collision is simply ignored. The toggle
-        // exists so the gain can be measured A/B in a single process.
-        if (hashMoveOrdering && existingEntry != null)
-            orderHashMoveFirst(moves, existingEntry.getBestMove());
+        // main payoff of the TT for move ordering. The picker checks the move is legal here, so a
+        // garbage move from a key collision is simply ignored. The toggle exists so the gain can be
+        // measured A/B in a single process.  The quiet moves are ordered by what earlier cutoffs taught the history
+        // table.
+        MovePicker moves = movePicker(ply);
+        moves.reset(game, hashMoveOrdering && existingEntry != null ? existingEntry.getPackedBestMove() : PackedMove.NONE,
+            quietMoveOrdering ? history : null, previousMove, ply);
 
         int value = Evaluator.MIN_VALUE;
         List<List<Move>> bestVariations = new ArrayList<>();
         int evaluatedCount = 0;
+        int quietCount = 0;
+        boolean futile = prunable && futilityPruning && depth <= FUTILITY_MAX_DEPTH;
+        boolean lateMovePrunable = prunable && lateMovePruning && depth <= LATE_MOVE_PRUNING_MAX_DEPTH;
 
-        xml.atDebug().log("<node depth=\"{}\" move=\"{}\">", depth, lastMove == null ? "no-move-yet" : lastMove.toLongSan());
+        if (xml.isDebugEnabled())
+            xml.atDebug().log("<node depth=\"{}\" move=\"{}\">", depth, previousMove == PackedMove.NONE ? "no-move-yet" : PackedMove.toLongSan(previousMove));
 
-        for (Move move : moves) {
+        for (int move = moves.next(); move != PackedMove.NONE; move = moves.next()) {
             game.move(move);
-            lastMove = move;
+
+            /*
+             * Futility pruning: a quiet move can't lift an evaluation that misses alpha by futilityMargin per ply of
+             * depth.  Late move pruning: a quiet move this far down the ordering, lateMovePruningCount plus depth
+             * squared moves in, is unlikely to cut off.  Both skip the move unsearched, but never the first move
+             * (so the node has a score) or one that gives check.
+             *
+             * https://www.chessprogramming.org/Futility_Pruning
+             * https://www.chessprogramming.org/Late_Move_Reductions#Late_Move_Pruning
+             */
+            if (evaluatedCount > 0 && PackedMove.isQuiet(move)
+                && ((futile && staticEval + futilityMargin * depth <= alpha)
+                    || (lateMovePrunable && evaluatedCount >= lateMovePruningCount + depth * depth))
+                && !game.isChecked()) {
+                game.undo();
+                continue;
+            }
+
             nodesVisited++;
 
             // are we out of time?  Every 4096 nodes, check to see if we're out of time.
             // Using bit manipulation to check for modulo (numerator & (denominator - 1)) == 0.
-            if ((nodesVisited & 4095) == 0 && moves.size() != 1 && timer.incrementIsUsed()) {
+            if ((nodesVisited & 4095) == 0 && timer.incrementIsUsed()) {
                 logger.atDebug().log("timing out after {}ms (allocation of {}ms)",
                     TimeUnit.NANOSECONDS.toMillis(timer.incrementTimeUsed()),
                     TimeUnit.NANOSECONDS.toMillis(timer.getIncrementAllocation()));
@@ -316,27 +657,95 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
                 break;
             }
 
+            /*
+             * Principal variation search: once the first move has set alpha, the others are only expected to prove
+             * they are no better, which a null window (alpha, alpha + 1) does more cheaply.  One that beats alpha
+             * is searched again with the full window for its exact score.  Late move reductions: a quiet move far
+             * down the ordering, that doesn't give check and isn't played from check, is first searched to a
+             * reduced depth, and to the full depth only if that beats alpha.  Root moves are never reduced, and
+             * moves at a node on the principal variation by a ply less.
+             *
+             * https://www.chessprogramming.org/Principal_Variation_Search
+             * https://www.chessprogramming.org/Late_Move_Reductions
+             */
+            int reduction = 0;
+            if (lateMoveReductions && ply > 0 && depth >= LMR_MIN_DEPTH && evaluatedCount >= LMR_MIN_MOVES
+                && PackedMove.isQuiet(move) && !inCheck && !game.isChecked()) {
+                reduction = REDUCTIONS[depth][evaluatedCount + 1] - (pvNode ? 1 : 0);
+                reduction = Math.clamp(reduction, 0, depth - 2);
+            }
+
             List<Move> childVariation = new ArrayList<>();
+            boolean exact = true;   // searched with the full window, so a score equal to the best is a real tie
+            int score;
+
+            if (evaluatedCount == 0 || (reduction == 0 && !principalVariationSearch)) {
+                score = -alphaBeta(game, depth - 1, -beta, -alpha, ply + 1, move, pvNode && evaluatedCount == 0, childVariation);
+            } else {
+                int scoutBeta = principalVariationSearch ? alpha + 1 : beta;
+                exact = scoutBeta == beta && reduction == 0;
+                score = -alphaBeta(game, depth - 1 - reduction, -scoutBeta, -alpha, ply + 1, move, false, childVariation);
+
+                if (score > alpha && reduction > 0) {
+                    childVariation = new ArrayList<>();
+                    exact = scoutBeta == beta;
+                    score = -alphaBeta(game, depth - 1, -scoutBeta, -alpha, ply + 1, move, false, childVariation);
+                }
+
+                if (score > alpha && score < beta && scoutBeta != beta) {
+                    childVariation = new ArrayList<>();
+                    exact = true;
+                    score = -alphaBeta(game, depth - 1, -beta, -alpha, ply + 1, move, pvNode, childVariation);
+                }
+            }
 
-            int score = -alphaBeta(game, depth - 1, -beta, -alpha, ply + 1, childVariation);
             evaluatedCount++;
             game.undo();
 
-            if (score == value) {
-                childVariation.add(0, move);
+            if (score == value && exact) {
+                childVariation.add(0, Move.fromPacked(move));
                 bestVariations.add(new ArrayList<>(childVariation));
             } else if (score > value) {
                 value = score;
 
                 bestVariations.clear();
-                childVariation.add(0, move);
+                childVariation.add(0, Move.fromPacked(move));
                 bestVariations.add(new ArrayList<>(childVariation));
             }
 
             alpha = Math.max(alpha, value);
 
-            if (alpha >= beta)
+            if (alpha >= beta) {
+                if (quietMoveOrdering && PackedMove.isQuiet(move) && !timedOut)
+                    history.update(move, previousMove, ply, depth, quietsSearched[ply], quietCount);
+
                 break;  // Alpha-beta cutoff
+            }
+
+            if (PackedMove.isQuiet(move))
+                quietsSearched[ply][quietCount++] = move;
+        }
+
+        // node is terminal as there are no moves: checkmate (side to move is in check) or
+        // stalemate (a draw). Score it here using the distance from the root so that shorter
+        // mates are preferred, rather than handing it to the material evaluator.
+        if (bestVariations.isEmpty()) {
+            principalVariation.clear();
+            int terminalScore = game.isChecked() ? -(Evaluator.MATE_VALUE - ply) : 0;
+
+            if (xml.isDebugEnabled()) {
+                xml.atDebug().log("<evaluate player=\"{}\" depth-remaining=\"{}\" alpha=\"{}\" beta=\"{}\" move=\"{}\" score=\"{}\"/>",
+                    game.getActivePlayerColor(),
+                    depth,
+                    alpha,
+                    beta,
+                    PackedMove.toLongSan(previousMove),
+                    terminalScore
+                );
+                xml.atDebug().log("</node>");
+            }
+
+            return terminalScore;
         }
 
         // The PV and the stored TT move are always the first best variation, so the search is fully
@@ -345,6 +754,7 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
         principalVariation.clear();
         principalVariation.addAll(bestVariations.get(0));
         Move bestMove = bestVariations.get(0).get(0);
+        int packedBestMove = game.getBoard().packMove(bestMove);
 
         if (ply == 0) {
             rootBestMoves.clear();
@@ -352,33 +762,150 @@ public class AlphaBetaPlayerWithTT extends BasicNegaMaxPlayer {
                 rootBestMoves.add(variation.get(0));
         }
 
-        updateTranspositionTable(game, value, bestMove, alphaOrig, beta, depth, ply);
+        updateTranspositionTable(game, value, packedBestMove, alphaOrig, beta, depth, ply);
 
-        xml.atDebug().log("<summary alpha=\"{}\" beta=\"{}\" score= \"{}\" total=\"{}\" pruned=\"{}\" best-move=\"{}\" history=\"{}\"/>", alpha, beta, value, moves.size(), moves.size() - evaluatedCount, bestMove.toLongSan(), principalVariation.stream().map(Move::toLongSan).collect(Collectors.joining(" ")));
-        xml.atDebug().log("</node>");
+        if (xml.isDebugEnabled()) {
+            xml.atDebug().log("<summary alpha=\"{}\" beta=\"{}\" score= \"{}\" total=\"{}\" pruned=\"{}\" best-move=\"{}\" history=\"{}\"/>", alpha, beta, value, moves.generatedCount(), moves.generatedCount() - evaluatedCount, bestMove.toLongSan(), principalVariation.stream().map(Move::toLongSan).collect(Collectors.joining(" ")));
+            xml.atDebug().log("</node>");
+        }
 
         return value;
     }
 
-    /**
-     * Moves the transposition table's stored best move to the front of {@code moves} so it is
-     * searched first. The move is identified by its from/to/promotion; if no legal move matches
-     * (e.g. the entry came from a colliding position) the list is left unchanged.
+    // the conditions under which passing says something about the position - see nullMoveSearch.  staticEval is the
+    // node's evaluation, or NOT_EVALUATED if the node hasn't needed it, and is only worked out if the rest hold.
+    private boolean canTryNullMove(Game game, int depth, int beta, int ply, int previousMove, int staticEval) {
+        return ply > 0
+            && ply >= nullMoveMinPly
+            && previousMove != PackedMove.NONE   // below the root only a null move leaves no previous move
+            && depth >= NULL_MOVE_MIN_DEPTH
+            && beta < MATE_BOUND
+            && !game.isChecked()
+            && game.getBoard().hasNonPawnMaterial(game.getActivePlayerColor())
+            && (staticEval == NOT_EVALUATED ? evaluate(game, ply) : staticEval) >= beta;
+    }
+
+    /*
+     * Null-move pruning: let the opponent move twice in a row, searched with a reduced depth and a null window at
+     * beta.  If the position still fails high after passing, a real move would almost certainly do so too, and the
+     * node is cut off without searching any.  The reduction R grows with depth, 2 plies plus one for every 3 plies
+     * of depth, but never takes the null-move search below the quiescence search.
+     *
+     * Passing is not always the worst move.  In zugzwang every real move is worse than passing, so the null move
+     * fails high where the real moves wouldn't.  It isn't tried in check (passing would be illegal), by a side with
+     * only pawns left (where zugzwang is common), right after a null move (two passes prove nothing), at a beta that
+     * is a mate score, or when the static evaluation is already below beta.  From NULL_MOVE_VERIFICATION_DEPTH a
+     * cutoff is only taken once a verification search of this node, reduced by R and with null moves off for the
+     * plies below it, also fails high.
+     *
+     * Returns the cutoff score, or Evaluator.MIN_VALUE when the node must be searched.
+     *
+     * https://www.chessprogramming.org/Null_Move_Pruning
      */
-    void orderHashMoveFirst(MoveList<Move> moves, Move hashMove) {
-        for (int i = 1; i < moves.size(); i++) {
-            Move m = moves.get(i);
-            if (m.getFrom() == hashMove.getFrom()
-                && m.getTo() == hashMove.getTo()
-                && m.getPromotionPiece() == hashMove.getPromotionPiece()) {
-                moves.remove(i);
-                moves.add(0, m);
-                return;
+    private int nullMoveSearch(Game game, int depth, int beta, int ply, int previousMove) {
+        int reduction = Math.min(2 + depth / 3, depth - 1);
+
+        game.makeNullMove();
+        nodesVisited++;
+        int score = -alphaBeta(game, depth - 1 - reduction, -beta, -beta + 1, ply + 1, PackedMove.NONE, false, new ArrayList<>());
+        game.undoNullMove();
+
+        if (score < beta || timedOut)
+            return Evaluator.MIN_VALUE;
+
+        if (score >= MATE_BOUND)
+            score = beta;   // passing can't prove a mate
+
+        if (depth < NULL_MOVE_VERIFICATION_DEPTH)
+            return score;
+
+        int minPly = nullMoveMinPly;
+        nullMoveMinPly = ply + 3 * (depth - reduction) / 4;
+        int verified = alphaBeta(game, depth - reduction, beta - 1, beta, ply, previousMove, false, new ArrayList<>());
+        nullMoveMinPly = minPly;
+
+        return verified >= beta ? score : Evaluator.MIN_VALUE;
+    }
+
+    /*
+     * Quiescence search: below the horizon only captures and promotions are searched, until the position is quiet
+     * and the static evaluation can be trusted.  The side to move may "stand pat" on the evaluation instead of
+     * capturing, so a position whose evaluation already reaches beta fails high at once.  Captures that lose
+     * material (Board.seeGe) are skipped, as are captures that can't lift the score to alpha even with DELTA_MARGIN
+     * to spare (delta pruning).  In check there is no standing pat: every evasion is searched, so a mate on the
+     * horizon is still seen.
+     *
+     * https://www.chessprogramming.org/Quiescence_Search
+     */
+    private int quiesce(Game game, int alpha, int beta, int ply) {
+        selectiveDepth = Math.max(selectiveDepth, ply);
+
+        if (ply >= MAX_PLY - 1)
+            return evaluate(game, ply);
+
+        boolean inCheck = game.isChecked();
+        int standPat = 0;
+        int best = Evaluator.MIN_VALUE;
+        MovePicker moves = movePicker(ply);
+
+        if (inCheck) {
+            moves.reset(game, PackedMove.NONE);
+        } else {
+            standPat = evaluate(game, ply);
+            if (standPat >= beta)
+                return standPat;
+
+            alpha = Math.max(alpha, standPat);
+            best = standPat;
+            moves.resetNoisy(game);
+        }
+
+        Board board = game.getBoard();
+
+        for (int move = moves.next(); move != PackedMove.NONE; move = moves.next()) {
+            if (!inCheck) {
+                if (!PackedMove.isPromoting(move) && standPat + MvvLvaMoveComparator.capturedValue(move) + DELTA_MARGIN <= alpha)
+                    continue;
+
+                if (!board.seeGe(move, 0))
+                    continue;
+            }
+
+            game.move(move);
+            quiescenceNodes++;
+            int score = -quiesce(game, -beta, -alpha, ply + 1);
+            game.undo();
+
+            if (score > best) {
+                best = score;
+                alpha = Math.max(alpha, score);
+
+                if (alpha >= beta)
+                    break;
             }
         }
+
+        // in check with no way out
+        if (best == Evaluator.MIN_VALUE)
+            return -(Evaluator.MATE_VALUE - ply);
+
+        return best;
+    }
+
+    // checkmate on the 100th half move still counts as a mate
+    private static boolean isDrawnByRule(Game game) {
+        return game.isRepeated() || (game.exceededMoves() && !(game.isChecked() && game.legalMoveCount() == 0));
+    }
+
+    private MovePicker movePicker(int ply) {
+        if (movePickers[ply] == null)
+            movePickers[ply] = new MovePicker();
+
+        movePickers[ply].setDeferLosingCaptures(deferLosingCaptures);
+        return movePickers[ply];
     }
 
-    private void updateTranspositionTable(Game game, int value, Move best, int alphaOrig, int beta, int depth, int ply) {
+    private void updateTranspositionTable(Game game, int value, int best, int alphaOrig, int beta, int depth, int ply) {
         TranspositionTable.NodeType nt;
         if (value <= alphaOrig)
             nt = TranspositionTable.NodeType.UPPER_BOUND;
@@ -156,10 +156,11 @@ public class ChessAIEvaluator extends PieceSquareEvaluator {
 
         Move lastMove = game.getLastMove();
 
-        if(lastMove == null)
+        // nothing played yet.  After a null move there is no last move either, but the position is still scored.
+        if(lastMove == null && !game.isAfterNullMove())
             return 0;
 
-        if(lastMove.isCapture()) {
+        if(lastMove != null && lastMove.isCapture()) {
             bonus += PIECE_WEIGHTS.get(lastMove.getCapturePiece().getAlgebraicChar()) * sideMoved;
         }
 
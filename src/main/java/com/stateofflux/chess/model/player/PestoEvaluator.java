@@ -193,16 +193,15 @@ public class PestoEvaluator implements Evaluator {
         eg[1] = 0;
 
         Board b = game.getBoard();
-        /* evaluate each piece */
-        for (int sq = 0; sq < 64; ++sq) {
+        /* evaluate each piece - only the occupied squares are visited */
+        for (long pieces = b.getOccupied(); pieces != 0; pieces &= pieces - 1) {
+            int sq = Long.numberOfTrailingZeros(pieces);
             Piece pc = b.get(sq);
             int index = pc.getIndex();
 
-            if (pc != Piece.EMPTY) {
-                mg[pc.colorOffset()] += mg_table[index][sq];
-                eg[pc.colorOffset()] += eg_table[index][sq];
-                gamePhase += gamephaseInc[index];
-            }
+            mg[pc.colorOffset()] += mg_table[index][sq];
+            eg[pc.colorOffset()] += eg_table[index][sq];
+            gamePhase += gamephaseInc[index];
         }
 
         int side2move = game.getActivePlayerColor().isWhite() ? 0 : 1;
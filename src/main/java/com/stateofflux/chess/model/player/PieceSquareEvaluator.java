@@ -88,12 +88,12 @@ public abstract class PieceSquareEvaluator implements Evaluator {
         // a) it's faster than creating legal moves
         // b) the current game logic doesn't take the moving player into account when cleaning up moves.  e.g. if
         //    it is white's turn and I ask for black moves, it will remove any black moves that put white in check.
-        MoveList<Move> whiteMoves = game.pseudoLegalMoves(PlayerColor.WHITE);
-        MoveList<Move> blackMoves = game.pseudoLegalMoves(PlayerColor.BLACK);
+        int whiteMoves = game.pseudoLegalMoveCount(PlayerColor.WHITE);
+        int blackMoves = game.pseudoLegalMoveCount(PlayerColor.BLACK);
 
         // from the perspective of the white player
         int mobilityScore = mobilityWeight *
-            (whiteMoves.size() - blackMoves.size());
+            (whiteMoves - blackMoves);
 
 /*
         if (game.isChecked()) {
@@ -132,9 +132,9 @@ public abstract class PieceSquareEvaluator implements Evaluator {
         Board b = game.getBoard();
         boolean endGame = isEndGame(game);
 
-        for (int i = 0; i < 64; i++) {
+        for (long pieces = b.getOccupied(); pieces != 0; pieces &= pieces - 1) {
+            int i = Long.numberOfTrailingZeros(pieces);
             Piece p = b.get(i);
-            if (p.isEmpty()) continue;
 
             score += tableFor(p, endGame)[i] * (p.isWhite() ? 1 : -1);
         }
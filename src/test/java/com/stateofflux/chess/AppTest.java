@@ -1,6 +1,8 @@
 package com.stateofflux.chess;
 
 import com.stateofflux.chess.model.PlayerColor;
+import com.stateofflux.chess.model.player.AlphaBetaPlayerWithTT;
+import com.stateofflux.chess.model.player.Player;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -54,6 +56,56 @@ class AppTest {
         assertThat(output).contains("uciok");
     }
 
+    @Test public void uciAdvertisesTheThreadsOption() throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        App app = new App(new AppArgs());
+
+        String data =
+            "uci\n" +
+                "setoption name Threads value 2\n" +
+                "go perft 2\n" +
+                "go perft 2 3\n" +
+                "isready\n" +
+                "quit\n";
+        System.setIn(new ByteArrayInputStream(data.getBytes()));
+
+        app.uciLoop();
+        String output = new String(((ByteArrayOutputStream) baos).toByteArray());
+        assertThat(output).contains("option name Threads type spin").contains("readyok");
+    }
+
+    @Test public void pruningMarginsAreUciOptions() throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        AppArgs aa = new AppArgs();
+        aa.whiteStrategy = "AlphaBetaPlayerWithTT";
+        aa.blackStrategy = "AlphaBetaPlayerWithTT";
+        App app = new App(aa);
+
+        String data =
+            "uci\n" +
+                "setoption name ReverseFutilityMargin value 120\n" +
+                "setoption name RazoringMargin value 400\n" +
+                "setoption name FutilityMargin value 150\n" +
+                "setoption name LateMovePruningCount value 5\n" +
+                "position startpos\n" +
+                "quit\n";
+        System.setIn(new ByteArrayInputStream(data.getBytes()));
+
+        app.uciLoop();
+        String output = new String(((ByteArrayOutputStream) baos).toByteArray());
+        assertThat(output)
+            .contains("option name ReverseFutilityMargin type spin")
+            .contains("option name RazoringMargin type spin")
+            .contains("option name FutilityMargin type spin")
+            .contains("option name LateMovePruningCount type spin");
+
+        for (Player player : new Player[] { app.getWhitePlayer(), app.getBlackPlayer() }) {
+            AlphaBetaPlayerWithTT searcher = (AlphaBetaPlayerWithTT) player;
+            assertThat(searcher.getReverseFutilityMargin()).isEqualTo(120);
+            assertThat(searcher.getRazoringMargin()).isEqualTo(400);
+            assertThat(searcher.getFutilityMargin()).isEqualTo(150);
+            assertThat(searcher.getLateMovePruningCount()).isEqualTo(5);
+        }
+    }
+
     @Test public void isReady() throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
         AppArgs aa = new AppArgs();
         App app = new App(aa);
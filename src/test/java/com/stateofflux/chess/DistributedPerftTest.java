@@ -0,0 +1,132 @@
+package com.stateofflux.chess;
+
+import com.stateofflux.chess.model.Game;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("UnitTest")
+class DistributedPerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private final List<PerftWorker> workers = new ArrayList<>();
+
+    @BeforeEach
+    public void startWorkers() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            PerftWorker worker = new PerftWorker(0, 1, null);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @AfterEach
+    public void stopWorkers() throws IOException {
+        for (PerftWorker worker : workers)
+            worker.close();
+    }
+
+    private List<InetSocketAddress> addresses() {
+        return workers.stream().map(w -> InetSocketAddress.createUnresolved("localhost", w.getPort())).toList();
+    }
+
+    @Test public void matchesPerftAtRoot() throws IOException {
+        Game game = new Game(KIWIPETE);
+        SortedMap<String, Long> expected = game.perftAtRoot(3);
+
+        assertThat(new DistributedPerft(addresses(), 1, null).perftAtRoot(game, 3)).isEqualTo(expected);
+        assertThat(new DistributedPerft(addresses(), 2, null).perftAtRoot(game, 3)).isEqualTo(expected);
+        assertThat(game.asFen()).isEqualTo(KIWIPETE);
+    }
+
+    @Test public void jobsOfAFailedWorkerGoToTheOthers() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        List<InetSocketAddress> addresses = new ArrayList<>(addresses());
+        addresses.add(InetSocketAddress.createUnresolved("localhost", closedPort));
+
+        Game game = new Game(KIWIPETE);
+        assertThat(new DistributedPerft(addresses, 1, null).perftAtRoot(game, 3)).isEqualTo(game.perftAtRoot(3));
+
+        assertThatThrownBy(() -> new DistributedPerft(List.of(addresses.getLast()), 1, null).perftAtRoot(game, 3))
+            .isInstanceOf(IOException.class).hasMessageContaining("48 of 48 jobs were not counted");
+    }
+
+    @Test public void resumesFromACheckpoint(@TempDir Path dir) throws IOException {
+        Path checkpoint = dir.resolve("kiwipete.checkpoint");
+        Game game = new Game(KIWIPETE);
+        SortedMap<String, Long> expected = game.perftAtRoot(3);
+
+        assertThat(new DistributedPerft(addresses(), 1, checkpoint).perftAtRoot(game, 3)).isEqualTo(expected);
+
+        List<String> lines = Files.readAllLines(checkpoint);
+        assertThat(lines).hasSize(1 + 48);
+        assertThat(lines.getFirst()).isEqualTo("perft 3 1 " + KIWIPETE);
+
+        // every job is in the checkpoint, so no worker is needed
+        assertThat(new DistributedPerft(List.of(), 1, checkpoint).perftAtRoot(game, 3)).isEqualTo(expected);
+
+        // a run that stopped part way, with its last line cut short
+        Files.writeString(checkpoint, String.join("\n", lines.subList(0, 11)) + "\n" + lines.get(11).substring(0, 2));
+        assertThat(new DistributedPerft(addresses(), 1, checkpoint).perftAtRoot(game, 3)).isEqualTo(expected);
+        assertThat(Files.readAllLines(checkpoint)).hasSize(1 + 48 + 1);
+
+        assertThatThrownBy(() -> new DistributedPerft(addresses(), 2, checkpoint).perftAtRoot(game, 3))
+            .isInstanceOf(IOException.class).hasMessageContaining("is for 'perft 3 1");
+    }
+
+    @Test public void workersCanBeSeparateProcesses() throws IOException {
+        List<Process> processes = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                Process process = new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    App.class.getName(), "--perft-worker", "0", "--perft-threads", "1")
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+                processes.add(process);
+                addresses.add(InetSocketAddress.createUnresolved("localhost", readPort(process)));
+            }
+
+            Game game = new Game(KIWIPETE);
+            assertThat(new DistributedPerft(addresses, 1, null).perftAtRoot(game, 3)).isEqualTo(game.perftAtRoot(3));
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+    }
+
+    // App prints "perft worker listening on port N" once the worker is bound
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.startsWith("perft worker listening on port "))
+                return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+        }
+
+        throw new IOException("perft worker exited before listening");
+    }
+}
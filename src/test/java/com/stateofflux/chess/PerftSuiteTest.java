@@ -0,0 +1,68 @@
+package com.stateofflux.chess;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("UnitTest")
+class PerftSuiteTest {
+    private static final String STARTPOS = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test public void parsesTheFenAndTheDepthChecks() {
+        PerftSuite.Position position = PerftSuite.parse(3, STARTPOS + " ;D1 20 ;D2 400 ;D3 8902");
+
+        assertThat(position.line()).isEqualTo(3);
+        assertThat(position.fen()).isEqualTo(STARTPOS);
+        assertThat(position.expected()).containsEntry(1, 20L).containsEntry(3, 8902L).hasSize(3);
+        assertThat(PerftSuite.parse(4, "   ")).isNull();
+        assertThat(PerftSuite.parse(5, "# a comment")).isNull();
+        assertThatThrownBy(() -> PerftSuite.parse(6, STARTPOS + " ;perft 20")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test public void reportsEachPositionAndTheTotals(@TempDir Path dir) throws IOException {
+        Path epd = dir.resolve("suite.epd");
+        Files.writeString(epd,
+            STARTPOS + " ;D1 20 ;D2 400 ;D3 8902 ;D4 197281\n" +
+            "\n" +
+            "4k3/8/8/8/8/8/8/4K2R w K - 0 1 ;D1 15 ;D2 67\n");   // D2 is really 66
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PerftSuite suite = new PerftSuite(3, 2);
+        PerftSuite.Summary summary = suite.run(epd, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String output = bytes.toString(StandardCharsets.UTF_8);
+
+        assertThat(summary.positions()).isEqualTo(2);
+        assertThat(summary.failures()).isEqualTo(1);
+        assertThat(summary.nodes()).isEqualTo(20 + 400 + 8902 + 15 + 66);   // D4 is past the maximum depth
+        assertThat(output).contains("ok       1").contains("FAIL     3 D2 expected 67, got 66").contains("2 positions, 1 failed");
+
+        Path json = dir.resolve("out").resolve("perft-suite.json");
+        suite.writeJson(json, summary);
+
+        assertThat(Files.readString(json)).contains("\"name\": \"perft suite d3\"").contains("\"unit\": \"nodes/sec\"");
+    }
+
+    @Test public void appExitStatusReflectsTheResult(@TempDir Path dir) throws IOException {
+        Path epd = dir.resolve("suite.epd");
+        Files.writeString(epd, STARTPOS + " ;D1 20 ;D2 400\n");
+
+        AppArgs aa = new AppArgs();
+        aa.perftSuite = epd.toString();
+        aa.perftThreads = 1;
+
+        assertThat(App.runPerftSuite(aa)).isEqualTo(0);
+
+        aa.perftSuite = dir.resolve("missing.epd").toString();
+        assertThat(App.runPerftSuite(aa)).isEqualTo(2);
+    }
+}
@@ -191,4 +191,181 @@ public class BoardTest {
             assertThat(m.getCapturePiece()).isEqualTo(Piece.WHITE_PAWN);
         }
     }
+
+    @Nested
+    class Aggregates {
+        private static void assertAggregatesMatchRebuild(Board board) {
+            Board rebuilt = new Board(board.toFen());
+
+            assertThat(board.getOccupied()).isEqualTo(rebuilt.getOccupied());
+            assertThat(board.getWhite()).isEqualTo(rebuilt.getWhite());
+            assertThat(board.getBlack()).isEqualTo(rebuilt.getBlack());
+            assertThat(board.getWhiteWithoutKing()).isEqualTo(rebuilt.getWhiteWithoutKing());
+            assertThat(board.getBlackWithoutKing()).isEqualTo(rebuilt.getBlackWithoutKing());
+
+            for (int square = 0; square < 64; square++)
+                assertThat(board.pieceIndexAt(square)).as("square %d", square).isEqualTo(rebuilt.pieceIndexAt(square));
+        }
+
+        private static void walk(Game game, int depth) {
+            MoveBuffer moves = new MoveBuffer();
+            game.generateMoves(moves);
+
+            for (int i = 0; i < moves.size(); i++) {
+                game.move(moves.get(i));
+                assertAggregatesMatchRebuild(game.getBoard());
+
+                if (depth > 1)
+                    walk(game, depth - 1);
+
+                game.undo();
+                assertAggregatesMatchRebuild(game.getBoard());
+            }
+        }
+
+        @Test
+        void mailboxIsRebuiltWhenThePieceBoardsAreReplaced() {
+            Board board = new Board();
+            board.setBoards(new Board("4k3/8/8/8/8/8/8/R3K3").copyOfBoards());
+
+            assertThat(board.get(0)).isEqualTo(Piece.WHITE_ROOK);
+            assertThat(board.pieceIndexAt(60)).isEqualTo(Piece.BLACK_KING.getIndex());
+            assertThat(board.get(8)).isEqualTo(Piece.EMPTY);
+        }
+
+        @Test
+        void stayInStepWithThePieceBoardsThroughMoveAndUndo() {
+            // castling, captures, en passant and promotions are all reachable within two plies
+            walk(new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 2);
+            walk(new Game("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"), 2);
+        }
+    }
+
+    @Nested
+    class CountLegalMoves {
+        private static void walk(Game game, int depth) {
+            MoveBuffer moves = new MoveBuffer();
+            game.generateMoves(moves);
+
+            assertThat(game.getBoard().countLegalMoves(game.getActivePlayerColor())).as(game.asFen()).isEqualTo(moves.size());
+
+            if (depth == 0)
+                return;
+
+            for (int i = 0; i < moves.size(); i++) {
+                game.move(moves.get(i));
+                walk(game, depth - 1);
+                game.undo();
+            }
+        }
+
+        @Test
+        void matchesTheGeneratedMoveCount() {
+            // castling, pins, checks, en passant (including the horizontal pin) and promotions with and without captures
+            walk(new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 2);
+            walk(new Game("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 3);
+            walk(new Game("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"), 2);
+            walk(new Game("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"), 2);
+        }
+
+        @Test
+        void doubleCheckLeavesOnlyKingMoves() {
+            Game game = new Game("4k3/8/8/8/1b6/8/8/r3K1N1 w - - 0 1");   // the rook and bishop both check
+
+            assertThat(game.getBoard().countLegalMoves(PlayerColor.WHITE)).isEqualTo(2);   // Ke2 and Kf2
+        }
+    }
+
+    @Nested
+    class StaticExchange {
+        private static int move(Game game, String longSan) {
+            MoveBuffer moves = new MoveBuffer();
+            game.generateMoves(moves);
+
+            for (int i = 0; i < moves.size(); i++) {
+                if (PackedMove.toLongSan(moves.get(i)).equalsIgnoreCase(longSan))
+                    return moves.get(i);
+            }
+
+            throw new AssertionError(longSan + " is not a legal move in " + game.asFen());
+        }
+
+        private static int see(String fen, String longSan) {
+            Game game = new Game(fen);
+            return game.getBoard().see(move(game, longSan));
+        }
+
+        @Test
+        void undefendedPawnIsWon() {
+            assertThat(see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5")).isEqualTo(100);
+        }
+
+        @Test
+        void xraysJoinTheExchange() {
+            // Nxe5 Nxe5 Rxe5 Bxe5 Qxe5 (through e2) Qxe5 (through f6) - the knight is lost for a pawn
+            assertThat(see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5")).isEqualTo(-220);
+        }
+
+        @Test
+        void equalTradesAndLosingCaptures() {
+            assertThat(see("4k3/8/3p4/4p3/3P4/8/8/4K3 w - - 0 1", "d4e5")).isZero();
+            assertThat(see("4k3/8/3p4/4p3/8/8/8/4Q1K1 w - - 0 1", "e1e5")).isEqualTo(100 - 900);
+        }
+
+        @Test
+        void kingOnlyRecapturesUndefendedPieces() {
+            assertThat(see("6k1/8/8/3r4/8/3R4/3K4/8 b - - 0 1", "d5d3")).isZero();
+            assertThat(see("3r2k1/8/8/3r4/8/3R4/3K4/8 b - - 0 1", "d5d3")).isEqualTo(500);
+        }
+
+        @Test
+        void enPassantCapturesAPawn() {
+            Game game = new Game("4k3/3p4/8/4P3/8/8/8/4K3 b - - 0 1");
+            game.move("d5");
+            assertThat(game.getBoard().see(move(game, "e5d6"))).isEqualTo(100);
+
+            game = new Game("4k3/2bp4/8/4P3/8/8/8/4K3 b - - 0 1");
+            game.move("d5");
+            assertThat(game.getBoard().see(move(game, "e5d6"))).isZero();
+        }
+
+        @Test
+        void promotionsCountThePromotedPiece() {
+            assertThat(see("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q")).isEqualTo(800);
+            assertThat(see("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q")).isEqualTo(-100);
+            assertThat(see("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7b8q")).isEqualTo(1300);
+        }
+
+        @Test
+        void quietMoveToAnAttackedSquareLosesThePiece() {
+            assertThat(see("4k3/8/3p4/8/8/8/8/3RK3 w - - 0 1", "d1d5")).isZero();
+            assertThat(see("4k3/8/2p5/8/8/8/8/3RK3 w - - 0 1", "d1d5")).isEqualTo(-500);
+        }
+
+        @Test
+        void seeGeAgreesWithSee() {
+            String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1",
+                "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"
+            };
+
+            for (String fen : fens) {
+                Game game = new Game(fen);
+                Board board = game.getBoard();
+                MoveBuffer moves = new MoveBuffer();
+                game.generateMoves(moves);
+
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    int see = board.see(move);
+
+                    assertThat(board.seeGe(move, see)).as(fen + " " + PackedMove.toLongSan(move)).isTrue();
+                    assertThat(board.seeGe(move, see + 1)).as(fen + " " + PackedMove.toLongSan(move)).isFalse();
+                }
+            }
+        }
+    }
 }
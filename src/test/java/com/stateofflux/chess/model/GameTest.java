@@ -1,6 +1,7 @@
 package com.stateofflux.chess.model;
 
 import com.stateofflux.chess.model.pieces.PawnMoves;
+import com.stateofflux.chess.model.pieces.Piece;
 import com.stateofflux.chess.model.player.Evaluator;
 import com.stateofflux.chess.model.player.Player;
 import com.stateofflux.chess.model.player.RandomMovePlayer;
@@ -638,7 +639,115 @@ public class GameTest {
                 assertThat(game.getZobristKey()).isEqualTo(hash);
             }
         }
+
+        @Test public void undoReversesCastlingEnPassantAndPromotion() {
+            String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"
+            };
+
+            for(String fen : fens) {
+                Game game = new Game(fen);
+                long[] boards = game.getBoard().copyOfBoards();
+                long hash = game.getZobristKey();
+
+                for(var move : game.generateMoves()) {
+                    game.move(move);
+                    game.undo();
+
+                    assertThat(game.asFen()).isEqualTo(fen);
+                    assertThat(game.getBoard().getBoards()).containsExactly(boards);
+                    assertThat(game.getZobristKey()).isEqualTo(hash);
+                }
+            }
+        }
+    }
+    @Nested
+    class LegalMoveGenerator {
+        private void assertSameMovesAsMakeUndoFilter(String fen) {
+            Game legal = new Game(fen);
+            Game filtered = new Game(fen);
+            filtered.setLegalMoveGenerator(false);
+
+            assertThat(legal.generateMoves().asLongSan())
+                .containsExactlyElementsOf(filtered.generateMoves().asLongSan());
+        }
+
+        @Test public void pinnedPieceMovesAlongThePinOnly() {
+            // the bishop on d2 is pinned by the queen on a5; it may only take or move towards the queen
+            Game game = new Game("4k3/8/8/q7/8/8/3B4/4K3 w - - 0 1");
+
+            assertThat(game.generateMoves().asLongSan())
+                .filteredOn(m -> m.startsWith("d2"))
+                .containsExactlyInAnyOrder("d2c3", "d2b4", "d2a5");
+            assertSameMovesAsMakeUndoFilter("4k3/8/8/q7/8/8/3B4/4K3 w - - 0 1");
+        }
+
+        @Test public void singleCheckIsBlockedOrCaptured() {
+            assertSameMovesAsMakeUndoFilter("4k3/8/8/8/4r3/8/2N2B2/4K3 w - - 0 1");
+        }
+
+        @Test public void doubleCheckOnlyMovesTheKing() {
+            Game game = new Game("4k3/8/8/8/4r3/3n4/5B2/R3K3 w Q - 0 1");
+
+            assertThat(game.generateMoves().asLongSan()).allMatch(m -> m.startsWith("e1"));
+            assertSameMovesAsMakeUndoFilter("4k3/8/8/8/4r3/3n4/5B2/R3K3 w Q - 0 1");
+        }
+
+        @Test public void enPassantThatExposesTheKingAlongTheRankIsIllegal() {
+            Game game = new Game("8/8/8/K2pP2q/8/8/8/7k w - d6 0 1");
+
+            assertThat(game.generateMoves().asLongSan()).doesNotContain("e5d6");
+            assertSameMovesAsMakeUndoFilter("8/8/8/K2pP2q/8/8/8/7k w - d6 0 1");
+        }
+
+        @Test public void kingCannotRetreatAlongTheCheckingRay() {
+            assertSameMovesAsMakeUndoFilter("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        }
     }
+
+    @Nested
+    class LegalMoveCount {
+        @Test public void countFollowsMovesAndUndo() {
+            Game game = new Game();
+            assertThat(game.legalMoveCount()).isEqualTo(20);
+
+            game.move("e4");
+            assertThat(game.legalMoveCount()).isEqualTo(20);
+            game.move("f5");
+            assertThat(game.legalMoveCount()).isEqualTo(31);   // Qh5+ and the bishop are now free
+
+            game.undo();
+            assertThat(game.legalMoveCount()).isEqualTo(20);
+            game.undo();
+            assertThat(game.legalMoveCount()).isEqualTo(20);
+        }
+
+        @Test public void terminalStateFollowsMovesAndUndo() {
+            // fool's mate
+            Game game = Game.fromSan("1. f3 e5 2. g4");
+            assertThat(game.isCheckmated()).isFalse();
+
+            game.move("Qh4");
+            assertThat(game.isCheckmated()).isTrue();
+            assertThat(game.isStalemate()).isFalse();
+            assertThat(game.isOver()).isTrue();
+
+            game.undo();
+            assertThat(game.isCheckmated()).isFalse();
+            assertThat(game.isOver()).isFalse();
+        }
+
+        @Test public void countIsTheSameWithEitherGenerator() {
+            Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            assertThat(game.legalMoveCount()).isEqualTo(48);
+
+            game.setLegalMoveGenerator(false);
+            assertThat(game.legalMoveCount()).isEqualTo(48);
+        }
+    }
+
     @Nested
     class Repetition {
         @Test public void testThreefoldRepetition() {
@@ -717,6 +826,27 @@ public class GameTest {
             Game game = Game.fromSan("1. e4 Nf6 2. e5 d5 3. Bc4 Nc6 4. Bf1 Nb8 5. Bc4 Nc6 6. Bf1 Nb8");
             assertThat(game.isRepetition()).isFalse();
         }
+
+        @Test public void isRepeatedAfterTheFirstRepetition() {
+            Game game = new Game();
+            game.move("Nf3");
+            game.move("Nf6");
+            game.move("Ng1");
+            assertThat(game.isRepeated()).isFalse();
+
+            game.move("Ng8");
+            assertThat(game.isRepeated()).isTrue();
+            assertThat(game.isRepetition()).isFalse();
+
+            game.undo();
+            assertThat(game.isRepeated()).isFalse();
+        }
+
+        @Test public void positionsBeforeAPawnMoveAreNotRepeated() {
+            Game game = Game.fromSan("1. Nf3 Nf6 2. Ng1 Ng8 3. e4 e5 4. Nf3 Nf6 5. Ng1 Ng8");
+            assertThat(game.isRepeated()).isTrue();
+            assertThat(game.isRepetition()).isFalse();
+        }
     }
 
     @Disabled("Playing a full game with Random moves")
@@ -943,4 +1073,132 @@ Kh3 {0.00/6 1.5s} 136. Be5 {0.00/5 1.3s, Draw by fifty moves rule} 1/2-1/2
             assertThat(game.getHalfMoveClock()).isEqualTo(7);
         }
     }
+
+    @Nested
+    class Fork {
+        @Test public void forkIsTheSamePosition() {
+            Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 3 12");
+            game.move("a4");   // leaves an en passant target
+
+            Game fork = game.fork();
+
+            assertThat(fork.asFen()).isEqualTo(game.asFen());
+            assertThat(fork.getZobristKey()).isEqualTo(game.getZobristKey());
+            assertThat(fork.getZobristKey()).isEqualTo(fork.getBoard().calculateFullZorbistKey(fork.getActivePlayerColor()));
+            assertThat(fork.getHalfMoveClock()).isEqualTo(game.getHalfMoveClock());
+            assertThat(fork.getClock()).isEqualTo(game.getClock());
+            assertThat(fork.isChecked()).isEqualTo(game.isChecked());
+            assertThat(fork.perft(3)).isEqualTo(game.perft(3));
+        }
+
+        @Test public void forkIsIndependent() {
+            Game game = new Game();
+            Game fork = game.fork();
+
+            String start = game.asFen();
+            fork.move("e4");
+
+            assertThat(game.asFen()).isEqualTo(start);
+            assertThat(game.getBoard().get(12)).isEqualTo(Piece.WHITE_PAWN);
+            assertThat(fork.getBoard().get(28)).isEqualTo(Piece.WHITE_PAWN);
+        }
+
+        @Test public void forkKeepsTheHistory() {
+            Game game = new Game();
+            String start = game.asFen();
+            for (String move : List.of("Nf3", "Nf6", "Ng1", "Ng8", "Nf3", "Nf6", "Ng1"))
+                game.move(move);
+
+            Game fork = game.fork();
+            fork.move("Ng8");   // the start position for the third time
+
+            assertThat(fork.isRepetition()).isTrue();
+            assertThat(game.isRepetition()).isFalse();
+
+            // and the moves before the fork can be taken back
+            for (int i = 0; i < 8; i++)
+                fork.undo();
+
+            assertThat(fork.asFen()).isEqualTo(start);
+        }
+
+        @Test public void forkHistoryGrows() {
+            Game fork = new Game().fork();
+
+            for (int i = 0; i < 100; i++) {
+                fork.move("Nf3");
+                fork.move("Nf6");
+                fork.move("Ng1");
+                fork.move("Ng8");
+            }
+
+            assertThat(fork.getClock()).isEqualTo(400);
+        }
+    }
+
+    @Nested
+    class NullMove {
+        @Test public void passingChangesOnlyTheSideToMoveAndTheEnPassantTarget() {
+            Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 3 12");
+            game.move("a4");   // leaves an en passant target
+            String fen = game.asFen();
+            long key = game.getZobristKey();
+
+            game.makeNullMove();
+
+            assertThat(game.getActivePlayerColor()).isEqualTo(PlayerColor.WHITE);
+            assertThat(game.asFen()).isEqualTo("r3k2r/p1ppqpb1/bn2pnp1/3PN3/Pp2P3/2N2Q1p/1PPBBPPP/R3K2R w KQkq - 0 12");
+            assertThat(game.getZobristKey()).isEqualTo(game.getBoard().calculateFullZorbistKey(PlayerColor.WHITE));
+            assertThat(game.getZobristKey()).isEqualTo(new Game(game.asFen()).getZobristKey());
+            assertThat(game.legalMoveCount()).isEqualTo(new Game(game.asFen()).legalMoveCount());
+
+            game.undoNullMove();
+
+            assertThat(game.asFen()).isEqualTo(fen);
+            assertThat(game.getZobristKey()).isEqualTo(key);
+            assertThat(game.getActivePlayerColor()).isEqualTo(PlayerColor.BLACK);
+        }
+
+        @Test public void movesCanBePlayedAndUndoneAfterAPass() {
+            Game game = new Game();
+            String start = game.asFen();
+
+            game.makeNullMove();
+            game.move("e5");
+            game.move("e4");
+            game.undo();
+            game.undo();
+            game.undoNullMove();
+
+            assertThat(game.asFen()).isEqualTo(start);
+            assertThat(game.perft(3)).isEqualTo(8_902);
+        }
+
+        @Test public void noRepetitionAcrossAPass() {
+            Game game = new Game();
+            game.move("Nf3");
+            game.makeNullMove();
+            game.move("Ng1");
+            game.makeNullMove();
+
+            // the start position again, but only because white passed
+            assertThat(game.getZobristKey()).isEqualTo(new Game().getZobristKey());
+            assertThat(game.isRepeated()).isFalse();
+        }
+
+        @Test public void aPassIsNotALastMove() {
+            Game game = new Game();
+            game.move("e4");
+            game.makeNullMove();
+
+            assertThat(game.getLastMove()).isNull();
+            assertThat(game.isAfterNullMove()).isTrue();
+            assertThat(game.getMoveHistory()).isEqualTo("1. e2e4 0000 ");
+
+            game.undoNullMove();
+
+            assertThat(game.getLastMove().toLongSan()).isEqualTo("e2e4");
+            assertThat(game.isAfterNullMove()).isFalse();
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.Piece;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class HistoryTableTest {
+    private static final int NF3 = PackedMove.quiet(Piece.WHITE_KNIGHT.getIndex(), 6, 21);
+    private static final int NC3 = PackedMove.quiet(Piece.WHITE_KNIGHT.getIndex(), 1, 18);
+    private static final int E4 = PackedMove.quiet(Piece.WHITE_PAWN.getIndex(), 12, 28);
+    private static final int NF6 = PackedMove.quiet(Piece.BLACK_KNIGHT.getIndex(), 62, 45);
+    private static final int E5 = PackedMove.quiet(Piece.BLACK_PAWN.getIndex(), 52, 36);
+
+    private HistoryTable history;
+
+    @BeforeEach
+    public void setUp() {
+        history = new HistoryTable(8);
+        history.clear();
+    }
+
+    @Test public void aCutoffBecomesTheFirstKillerAndPushesTheOldOneDown() {
+        history.update(NF3, PackedMove.NONE, 2, 3, new int[0], 0);
+        history.update(NC3, PackedMove.NONE, 2, 3, new int[0], 0);
+
+        assertThat(history.killer(2, 0)).isEqualTo(NC3);
+        assertThat(history.killer(2, 1)).isEqualTo(NF3);
+        assertThat(history.killer(3, 0)).isEqualTo(PackedMove.NONE);
+
+        // the same move again doesn't fill both slots
+        history.update(NC3, PackedMove.NONE, 2, 3, new int[0], 0);
+        assertThat(history.killer(2, 1)).isEqualTo(NF3);
+    }
+
+    @Test public void theCutoffIsRewardedAndTheQuietMovesBeforeItPenalised() {
+        history.update(NF3, E5, 1, 4, new int[] { E4, NC3 }, 2);
+
+        assertThat(history.butterfly(NF3)).isEqualTo(16);
+        assertThat(history.butterfly(E4)).isEqualTo(-16);
+        assertThat(history.butterfly(NC3)).isEqualTo(-16);
+        assertThat(history.continuation(E5, NF3)).isEqualTo(16);
+        assertThat(history.continuation(E5, E4)).isEqualTo(-16);
+        assertThat(history.continuation(NF6, NF3)).isZero();
+        assertThat(history.counterMove(E5)).isEqualTo(NF3);
+    }
+
+    @Test public void scoresStayWithinTheLimit() {
+        for (int i = 0; i < 1_000; i++)
+            history.update(NF3, E5, 1, 30, new int[] { E4 }, 1);
+
+        assertThat(history.butterfly(NF3)).isBetween(0, HistoryTable.MAX_HISTORY);
+        assertThat(history.butterfly(E4)).isBetween(-HistoryTable.MAX_HISTORY, 0);
+    }
+
+    @Test public void killersRankAboveTheCounterMoveWhichRanksAboveHistory() {
+        history.update(E4, PackedMove.NONE, 1, 10, new int[0], 0);   // a big history score, and the killer at ply 1
+        history.update(NF3, E5, 2, 1, new int[0], 0);                // the counter move to e5, and the killer at ply 2
+
+        assertThat(history.score(E4, E5, 1)).isGreaterThan(history.score(NF3, E5, 1));
+        assertThat(history.score(NF3, E5, 1)).isGreaterThan(history.score(E4, E5, 3));
+        assertThat(history.score(E4, E5, 3)).isGreaterThan(history.score(NC3, E5, 3));
+    }
+
+    @Test public void clearForgetsEverything() {
+        history.update(NF3, E5, 1, 4, new int[] { E4 }, 1);
+        history.clear();
+
+        assertThat(history.killer(1, 0)).isEqualTo(PackedMove.NONE);
+        assertThat(history.counterMove(E5)).isEqualTo(PackedMove.NONE);
+        assertThat(history.butterfly(NF3)).isZero();
+        assertThat(history.score(E4, E5, 1)).isZero();
+    }
+}
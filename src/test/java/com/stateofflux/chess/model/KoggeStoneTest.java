@@ -0,0 +1,82 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.KingMoves;
+import com.stateofflux.chess.model.pieces.KnightMoves;
+import com.stateofflux.chess.model.pieces.PawnMoves;
+import com.stateofflux.chess.model.pieces.Piece;
+import com.stateofflux.chess.model.pieces.StraightLineMoves;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Tag;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class KoggeStoneTest {
+    @Test
+    public void fillsMatchTheMagicLookupsForEverySquare() {
+        Random random = new Random(20240601L);
+
+        for (int i = 0; i < 200; i++) {
+            long occupied = random.nextLong() & random.nextLong();   // about a quarter of the board
+
+            for (int square = 0; square < 64; square++) {
+                long bit = 1L << square;
+                long empty = ~(occupied | bit);
+
+                assertThat(KoggeStone.rookAttacks(bit, empty)).as("rook on %d", square)
+                    .isEqualTo(StraightLineMoves.getRookAttacks(square, occupied));
+                assertThat(KoggeStone.bishopAttacks(bit, empty)).as("bishop on %d", square)
+                    .isEqualTo(StraightLineMoves.getBishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void leaperAttacksMatchTheTables() {
+        for (int square = 0; square < 64; square++) {
+            long bit = 1L << square;
+
+            assertThat(KoggeStone.knightAttacks(bit)).as("knight on %d", square).isEqualTo(KnightMoves.KNIGHT_MOVES[square]);
+            assertThat(KoggeStone.kingAttacks(bit)).as("king on %d", square).isEqualTo(KingMoves.KING_MOVES[square]);
+            assertThat(KoggeStone.whitePawnAttacks(bit)).as("white pawn on %d", square).isEqualTo(PawnMoves.PAWN_ATTACKS[0][square]);
+            assertThat(KoggeStone.blackPawnAttacks(bit)).as("black pawn on %d", square).isEqualTo(PawnMoves.PAWN_ATTACKS[1][square]);
+        }
+    }
+
+    @Test
+    public void boardAttackMapsAgreeWithAttackersTo() {
+        Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Board board = game.getBoard();
+
+        for (PlayerColor color : new PlayerColor[] { PlayerColor.WHITE, PlayerColor.BLACK }) {
+            long occupied = board.getOccupied() & ~board.getKings(color.otherColor());
+            long attacks = board.getAttacks(color);
+
+            for (int square = 0; square < 64; square++)
+                assertThat((attacks & (1L << square)) != 0).as("%s attacks %d", color, square)
+                    .isEqualTo(board.attackersTo(square, color, occupied) != 0);
+        }
+
+        assertThat(board.getAttacks(Piece.WHITE_KNIGHT))
+            .isEqualTo(KnightMoves.KNIGHT_MOVES[18] | KnightMoves.KNIGHT_MOVES[36]);   // c3 and e5
+    }
+
+    @Test
+    public void mapsAreRecalculatedAfterAMove() {
+        Game game = new Game("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        Board board = game.getBoard();
+
+        assertThat(board.locationUnderAttack(PlayerColor.WHITE, 56)).isTrue();    // a8 up the a-file
+
+        game.move("Rb1");
+
+        assertThat(board.locationUnderAttack(PlayerColor.WHITE, 56)).isFalse();
+        assertThat(board.locationUnderAttack(PlayerColor.WHITE, 57)).isTrue();
+
+        game.undo();
+
+        assertThat(board.locationUnderAttack(PlayerColor.WHITE, 56)).isTrue();
+    }
+}
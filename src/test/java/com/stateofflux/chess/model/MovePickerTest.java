@@ -0,0 +1,134 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.Piece;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class MovePickerTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static List<String> pickAll(MovePicker picker) {
+        List<String> moves = new ArrayList<>();
+
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next())
+            moves.add(PackedMove.toLongSan(move));
+
+        return moves;
+    }
+
+    @Test public void picksEveryLegalMoveExactlyOnce() {
+        Game game = new Game(KIWIPETE);
+        MovePicker picker = new MovePicker();
+        picker.reset(game, PackedMove.NONE);
+
+        assertThat(pickAll(picker)).containsExactlyInAnyOrderElementsOf(game.generateMoves().asLongSan());
+    }
+
+    @Test public void hashMoveComesFirstAndIsNotRepeated() {
+        Game game = new Game(KIWIPETE);
+        int hashMove = game.getBoard().packMove(new Move(Piece.WHITE_BISHOP, "e2", "a6", Move.CAPTURE));
+        MovePicker picker = new MovePicker();
+        picker.reset(game, hashMove);
+
+        List<String> moves = pickAll(picker);
+
+        assertThat(moves.get(0)).isEqualTo("e2a6");
+        assertThat(moves).containsOnlyOnce("e2a6");
+        assertThat(moves).hasSameSizeAs(game.generateMoves());
+    }
+
+    @Test public void quietHashMoveComesFirst() {
+        // the transposition table hands back the move by from/to; it is not first in generation order
+        Game game = new Game(FenString.INITIAL_BOARD);
+        List<String> generated = game.generateMoves().asLongSan();
+        int hashMove = game.getBoard().packMove(Move.buildFrom(game.generateMoves().get(5).toLong()));
+        MovePicker picker = new MovePicker();
+        picker.reset(game, hashMove);
+
+        List<String> moves = pickAll(picker);
+
+        assertThat(moves.get(0)).isEqualTo(generated.get(5)).isNotEqualTo(generated.get(0));
+        assertThat(moves).containsExactlyInAnyOrderElementsOf(generated);   // nothing added or dropped
+    }
+
+    @Test public void capturesComeBeforeQuietMoves() {
+        Game game = new Game(KIWIPETE);
+        MovePicker picker = new MovePicker();
+        picker.reset(game, PackedMove.NONE);
+
+        int first = picker.next();
+
+        // the best MVV-LVA capture: the e2 bishop takes the a6 bishop
+        assertThat(PackedMove.isCapture(first)).isTrue();
+        assertThat(PackedMove.toLongSan(first)).isEqualTo("e2a6");
+    }
+
+    @Test public void illegalHashMoveIsIgnored() {
+        // a move from another position: there is no knight on g1 in kiwipete
+        Game game = new Game(KIWIPETE);
+        int foreign = PackedMove.quiet(Piece.WHITE_KNIGHT.getIndex(), 6, 21);
+        MovePicker picker = new MovePicker();
+        picker.reset(game, foreign);
+
+        assertThat(pickAll(picker)).doesNotContain("g1f3").hasSameSizeAs(game.generateMoves());
+    }
+
+    @Test public void illegalHashMoveLeavesTheOrderUnchanged() {
+        // a1a8 is not a legal move from the starting position (a key collision or a foreign entry)
+        Game game = new Game(FenString.INITIAL_BOARD);
+        int foreign = PackedMove.quiet(Piece.WHITE_QUEEN.getIndex(), 0, 56);
+        MovePicker picker = new MovePicker();
+
+        picker.reset(game, PackedMove.NONE);
+        List<String> unordered = pickAll(picker);
+        picker.reset(game, foreign);
+
+        assertThat(pickAll(picker)).containsExactlyElementsOf(unordered);
+    }
+
+    @Test public void generatedMovesAreLegalAndForeignMovesAreNot() {
+        Game game = new Game(KIWIPETE);
+        MoveBuffer moves = new MoveBuffer();
+        game.generateMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++)
+            assertThat(game.isLegalMove(moves.get(i))).as(PackedMove.toLongSan(moves.get(i))).isTrue();
+
+        // a pinned bishop stepping off the pin is pseudo legal, but not legal
+        Game pinned = new Game("4k3/8/8/q7/8/8/3B4/4K3 w - - 0 1");
+        int offThePin = PackedMove.quiet(Piece.WHITE_BISHOP.getIndex(), 11, 20);   // d2e3
+
+        assertThat(pinned.getBoard().isPseudoLegal(offThePin, PlayerColor.WHITE)).isTrue();
+        assertThat(pinned.isLegalMove(offThePin)).isFalse();
+    }
+
+    @Test public void quietMovesAreOrderedByTheHistoryTable() {
+        Game game = new Game(FenString.INITIAL_BOARD);
+        int nf3 = PackedMove.quiet(Piece.WHITE_KNIGHT.getIndex(), 6, 21);
+        int d4 = PackedMove.quiet(Piece.WHITE_PAWN.getIndex(), 11, 27);
+        int c4 = PackedMove.quiet(Piece.WHITE_PAWN.getIndex(), 10, 26);
+
+        HistoryTable history = new HistoryTable(4);
+        history.clear();
+        history.update(c4, PackedMove.NONE, 0, 6, new int[0], 0);   // history, and the killer at ply 0
+        history.update(d4, PackedMove.NONE, 1, 2, new int[0], 0);   // history only, as far as ply 2 is concerned
+        history.update(nf3, PackedMove.NONE, 2, 1, new int[0], 0);  // the killer at ply 2
+
+        MovePicker picker = new MovePicker();
+        picker.reset(game, PackedMove.NONE, history, PackedMove.NONE, 2);
+        List<String> moves = pickAll(picker);
+
+        assertThat(moves.subList(0, 3)).containsExactly("g1f3", "c2c4", "d2d4");
+        assertThat(moves).hasSameSizeAs(game.generateMoves());
+
+        // without a history table the quiet moves come in generation order
+        picker.reset(game, PackedMove.NONE);
+        assertThat(pickAll(picker)).containsExactlyElementsOf(game.generateMoves().asLongSan());
+    }
+}
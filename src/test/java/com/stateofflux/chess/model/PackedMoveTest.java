@@ -0,0 +1,91 @@
+package com.stateofflux.chess.model;
+
+import com.stateofflux.chess.model.pieces.CastlingHelper;
+import com.stateofflux.chess.model.pieces.Piece;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class PackedMoveTest {
+
+    @Nested
+    class EncodeDecode {
+        @Test public void quietMove() {
+            int m = PackedMove.quiet(Piece.WHITE_KNIGHT.getIndex(), 6, 21);
+
+            assertThat(PackedMove.from(m)).isEqualTo(6);
+            assertThat(PackedMove.to(m)).isEqualTo(21);
+            assertThat(PackedMove.piece(m)).isEqualTo(Piece.WHITE_KNIGHT);
+            assertThat(PackedMove.captured(m)).isEqualTo(Piece.EMPTY);
+            assertThat(PackedMove.isCapture(m)).isFalse();
+            assertThat(PackedMove.isPromoting(m)).isFalse();
+            assertThat(PackedMove.toLongSan(m)).isEqualTo("g1f3");
+        }
+
+        @Test public void capturePromotion() {
+            int m = PackedMove.withPromotion(
+                PackedMove.capture(Piece.WHITE_PAWN.getIndex(), 48, 57, Piece.BLACK_KNIGHT.getIndex()),
+                Piece.WHITE_QUEEN.getIndex());
+
+            assertThat(PackedMove.isCapture(m)).isTrue();
+            assertThat(PackedMove.captured(m)).isEqualTo(Piece.BLACK_KNIGHT);
+            assertThat(PackedMove.promotion(m)).isEqualTo(Piece.WHITE_QUEEN);
+            assertThat(PackedMove.toLongSan(m)).isEqualTo("a7b8Q");
+        }
+
+        @Test public void noneIsTheUciNullMove() {
+            assertThat(PackedMove.toLongSan(PackedMove.NONE)).isEqualTo("0000");
+        }
+
+        @Test public void castlingRookSquares() {
+            int m = PackedMove.quiet(Piece.BLACK_KING.getIndex(), 60, 58) | PackedMove.CASTLING_FLAG;
+
+            assertThat(PackedMove.isCastling(m)).isTrue();
+            assertThat(PackedMove.castlingRookFrom(m)).isEqualTo(CastlingHelper.BLACK_QUEEN_SIDE_INITIAL_ROOK_LOCATION);
+            assertThat(PackedMove.castlingRookTo(m)).isEqualTo(CastlingHelper.BLACK_QUEEN_SIDE_CASTLING_ROOK_LOCATION);
+        }
+
+        @Test public void noMoveIsNeverAValidMove() {
+            int m = PackedMove.quiet(Piece.WHITE_KING.getIndex(), 0, 1);
+
+            assertThat(m).isNotEqualTo(PackedMove.NONE);
+            assertThat(PackedMove.sameMove(m, PackedMove.NONE)).isFalse();
+        }
+    }
+
+    @Nested
+    class MoveView {
+        @Test public void generatedMovesRoundTripThroughMove() {
+            Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            MoveBuffer moves = new MoveBuffer();
+            game.generateMoves(moves);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int packed = moves.get(i);
+                assertThat(game.getBoard().packMove(Move.fromPacked(packed))).isEqualTo(packed);
+            }
+        }
+
+        @Test public void enPassantCaptureIsFlaggedByTheBoard() {
+            Game game = new Game("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+            int packed = game.getBoard().packMove(new Move(Piece.WHITE_PAWN, "e5", "f6", Move.CAPTURE));
+
+            assertThat(PackedMove.isEnPassantCapture(packed)).isTrue();
+            assertThat(PackedMove.captured(packed)).isEqualTo(Piece.BLACK_PAWN);
+            assertThat(PackedMove.enPassantCaptureSquare(packed)).isEqualTo(FenString.squareToLocation("f5"));
+        }
+    }
+
+    @Test public void bufferKeepsOrderWhenMovingToFront() {
+        MoveBuffer buffer = new MoveBuffer();
+        for (int to = 16; to < 20; to++)
+            buffer.add(PackedMove.quiet(Piece.WHITE_PAWN.getIndex(), to - 8, to));
+
+        buffer.moveToFront(2);
+
+        assertThat(buffer.toMoveList().asLongSan()).containsExactly("c2c3", "a2a3", "b2b3", "d2d3");
+    }
+}
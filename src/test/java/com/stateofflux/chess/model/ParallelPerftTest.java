@@ -0,0 +1,37 @@
+package com.stateofflux.chess.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+public class ParallelPerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test public void rootCountsMatchTheSingleThreadedPerft() {
+        Game game = new Game(KIWIPETE);
+
+        assertThat(new ParallelPerft(4).perftAtRoot(game, 3)).isEqualTo(game.perftAtRoot(3));
+        assertThat(game.asFen()).isEqualTo(KIWIPETE);
+    }
+
+    @Test public void splitsBelowTheRoot() {
+        // a split depth of 3 forks tasks at the first three plies before handing over to Game.perft
+        assertThat(new ParallelPerft(3, 3).perft(new Game(), 5)).isEqualTo(4_865_609L);
+        assertThat(new ParallelPerft(2).perft(new Game(KIWIPETE), 1)).isEqualTo(48L);
+    }
+
+    @Test public void continuesFromAPositionReachedByMoves() {
+        Game game = new Game();
+        game.moveLongNotation("e2e4");
+        game.moveLongNotation("d7d5");
+
+        assertThat(new ParallelPerft(2).perftAtRoot(game, 3)).isEqualTo(game.perftAtRoot(3));
+    }
+
+    @Test public void needsAtLeastOneThread() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelPerft(0));
+    }
+}
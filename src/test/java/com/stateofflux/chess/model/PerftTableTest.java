@@ -0,0 +1,48 @@
+package com.stateofflux.chess.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("UnitTest")
+public class PerftTableTest {
+    @Test public void storedCountsAreReturnedForTheSameKeyAndDepth() {
+        PerftTable table = new PerftTable(1);
+        long key = 0x1234_5678_9abc_def0L;
+
+        assertThat(table.get(key, 3)).isEqualTo(-1);
+
+        table.put(key, 3, 8902);
+
+        assertThat(table.get(key, 3)).isEqualTo(8902);
+        assertThat(table.get(key, 4)).isEqualTo(-1);
+        assertThat(table.get(key + 1, 3)).isEqualTo(-1);
+    }
+
+    @Test public void sizeIsRoundedDownToAPowerOfTwo() {
+        assertThat(new PerftTable(1).size()).isEqualTo(1 << 16);
+        assertThat(new PerftTable(3).size()).isEqualTo(1 << 17);
+        assertThatThrownBy(() -> new PerftTable(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test public void clearEmptiesTheTable() {
+        PerftTable table = new PerftTable(1);
+        table.put(42L, 2, 400);
+        table.clear();
+
+        assertThat(table.get(42L, 2)).isEqualTo(-1);
+    }
+
+    @Test public void hashedPerftMatchesUnhashedPerft() {
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Game game = new Game(kiwipete);
+        game.setPerftTable(new PerftTable(1));
+
+        assertThat(game.perft(3)).isEqualTo(97862);
+        assertThat(game.perft(3)).isEqualTo(97862);   // answered from the table
+        assertThat(game.perftAtRoot(4).values().stream().reduce(0L, Long::sum)).isEqualTo(4085603);
+        assertThat(new ParallelPerft(2).perft(game, 4)).isEqualTo(4085603);
+    }
+}
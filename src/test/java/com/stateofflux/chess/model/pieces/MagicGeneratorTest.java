@@ -0,0 +1,41 @@
+package com.stateofflux.chess.model.pieces;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class MagicGeneratorTest {
+    @Test
+    public void foundMagicsIndexTheAttacksWithoutDestructiveCollisions() {
+        MagicGenerator generator = new MagicGenerator(7L, 1_000_000L);
+
+        for (int square : new int[] { 0, 27, 63 }) {
+            long mask = StraightLineMoves.bishopMask(square);
+            int bits = Long.bitCount(mask);
+            MagicGenerator.Magic magic = generator.find(square, false, bits);
+            long[] table = new long[1 << bits];
+
+            assertThat(magic).as("bishop magic for %d", square).isNotNull();
+
+            for (int i = 0; i < 1 << bits; i++) {
+                long occupied = Long.expand(i, mask);
+                table[(int) ((occupied * magic.magic()) >>> (64 - magic.bits()))] = StraightLineMoves.calculateBishopMoves(square, occupied);
+            }
+
+            for (int i = 0; i < 1 << bits; i++) {
+                long occupied = Long.expand(i, mask);
+                assertThat(table[(int) ((occupied * magic.magic()) >>> (64 - magic.bits()))])
+                    .isEqualTo(StraightLineMoves.getBishopAttacksMagic(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void flatTablesHoldOnlyTheEntriesEachSquareNeeds() {
+        // 102,400 rook and 5,248 bishop entries, instead of 64 x 4096 and 64 x 1024
+        assertThat(StraightLineMoves.tableBytes(SliderBackend.MAGIC)).isEqualTo((102_400L + 5_248L) * Long.BYTES);
+        assertThat(StraightLineMoves.tableBytes(SliderBackend.PEXT)).isEqualTo((102_400L + 5_248L) * Long.BYTES);
+    }
+}
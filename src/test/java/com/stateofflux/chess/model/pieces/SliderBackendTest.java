@@ -0,0 +1,51 @@
+package com.stateofflux.chess.model.pieces;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class SliderBackendTest {
+    @Test
+    public void pextAndMagicAgreeForEverySquare() {
+        Random random = new Random(31337L);
+
+        for (int i = 0; i < 500; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+
+            for (int square = 0; square < 64; square++) {
+                assertThat(StraightLineMoves.getRookAttacksPext(square, occupied)).as("rook on %d", square)
+                    .isEqualTo(StraightLineMoves.getRookAttacksMagic(square, occupied));
+                assertThat(StraightLineMoves.getBishopAttacksPext(square, occupied)).as("bishop on %d", square)
+                    .isEqualTo(StraightLineMoves.getBishopAttacksMagic(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void fastPextNeedsBmi2() {
+        assertThat(SliderBackend.hasFastPext(cpu("GenuineIntel", 6, "fpu sse4_2 avx2 bmi1 bmi2"))).isTrue();
+        assertThat(SliderBackend.hasFastPext(cpu("GenuineIntel", 6, "fpu sse4_2 avx"))).isFalse();
+    }
+
+    @Test
+    public void zenOneAndTwoAreTreatedAsSlowPext() {
+        assertThat(SliderBackend.hasFastPext(cpu("AuthenticAMD", 23, "fpu avx2 bmi1 bmi2"))).isFalse();   // Zen 2
+        assertThat(SliderBackend.hasFastPext(cpu("AuthenticAMD", 25, "fpu avx2 bmi1 bmi2"))).isTrue();    // Zen 3
+    }
+
+    private static List<String> cpu(String vendor, int family, String flags) {
+        return List.of(
+            "processor\t: 0",
+            "vendor_id\t: " + vendor,
+            "cpu family\t: " + family,
+            "flags\t\t: " + flags,
+            "",
+            "processor\t: 1",
+            "flags\t\t: fpu");
+    }
+}
@@ -0,0 +1,58 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.MORPHY_MATE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aspiration windows search each iteration around the previous score.  A score outside the window must be
+ * searched again, so the search finds the same forced results with the windows on as off.
+ */
+@Tag("UnitTest")
+public class AspirationWindowTest {
+    private AlphaBetaPlayerWithTT player(int depth, boolean aspiration) {
+        AlphaBetaPlayerWithTT player = SearchTestSupport.player(depth);
+        player.setAspirationWindows(aspiration);
+        return player;
+    }
+
+    @Test public void enabledByDefault() {
+        assertThat(new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator()).isAspirationWindows()).isTrue();
+    }
+
+    @Test public void aFailLowIsSearchedAgain() {
+        // Italian game, Nf6 attacking e4: the depth 4 window around the depth 3 score fails low, and the wider
+        // search that follows settles on the move the full window finds.  Forward pruning is off: its margins are
+        // measured against alpha and beta, so with it the two windows prune different trees.
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+
+        for (boolean aspiration : new boolean[] { true, false }) {
+            AlphaBetaPlayerWithTT player = player(4, aspiration);
+            player.setReverseFutilityPruning(false);
+            player.setRazoring(false);
+            player.setFutilityPruning(false);
+            player.setLateMovePruning(false);
+            player.getNextMove(new Game(fen));
+
+            assertThat(player.getPrincipalVariation().getFirst().toLongSan())
+                .as("aspiration %s", aspiration)
+                .isEqualTo("b1c3");
+            assertThat(player.getAspirationFailLows()).as("aspiration %s", aspiration).isEqualTo(aspiration ? 1 : 0);
+        }
+    }
+
+    @Test public void aMateIsFoundWithAndWithoutWindows() {
+        for (boolean aspiration : new boolean[] { true, false }) {
+            AlphaBetaPlayerWithTT player = player(5, aspiration);
+            player.getNextMove(new Game(MORPHY_MATE));
+
+            assertThat(player.getPrincipalVariation().getFirst().toLongSan())
+                .as("aspiration %s", aspiration)
+                .isEqualTo("a1a6");
+        }
+    }
+}
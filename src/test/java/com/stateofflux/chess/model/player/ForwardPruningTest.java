@@ -0,0 +1,63 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.BACK_RANK_MATE;
+import static com.stateofflux.chess.model.player.SearchTestSupport.MIDGAME;
+import static com.stateofflux.chess.model.player.SearchTestSupport.MORPHY_MATE;
+import static com.stateofflux.chess.model.player.SearchTestSupport.bestMove;
+import static com.stateofflux.chess.model.player.SearchTestSupport.nodes;
+import static com.stateofflux.chess.model.player.SearchTestSupport.player;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reverse futility pruning, razoring, futility pruning and late move pruning each have a toggle and a tunable
+ * margin.  A wider margin must prune less, they must not depend on principal variation search, and together
+ * they may not lose a forced mate.
+ */
+@Tag("UnitTest")
+public class ForwardPruningTest {
+    @Test public void allAreEnabledByDefaultWithTheDefaultMargins() {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator());
+
+        assertThat(player.isReverseFutilityPruning()).isTrue();
+        assertThat(player.isRazoring()).isTrue();
+        assertThat(player.isFutilityPruning()).isTrue();
+        assertThat(player.isLateMovePruning()).isTrue();
+        assertThat(player.getReverseFutilityMargin()).isEqualTo(AlphaBetaPlayerWithTT.DEFAULT_REVERSE_FUTILITY_MARGIN);
+        assertThat(player.getRazoringMargin()).isEqualTo(AlphaBetaPlayerWithTT.DEFAULT_RAZORING_MARGIN);
+        assertThat(player.getFutilityMargin()).isEqualTo(AlphaBetaPlayerWithTT.DEFAULT_FUTILITY_MARGIN);
+        assertThat(player.getLateMovePruningCount()).isEqualTo(AlphaBetaPlayerWithTT.DEFAULT_LATE_MOVE_PRUNING_COUNT);
+    }
+
+    @Test public void prunesWithPrincipalVariationSearchOff() {
+        // without PVS no node has a null window, so the prunings need to know the principal variation another way
+        AlphaBetaPlayerWithTT pruning = player(6);
+        AlphaBetaPlayerWithTT none = player(6);
+        pruning.setPrincipalVariationSearch(false);
+        none.setPrincipalVariationSearch(false);
+        none.setReverseFutilityPruning(false);
+        none.setRazoring(false);
+        none.setFutilityPruning(false);
+        none.setLateMovePruning(false);
+
+        assertThat(nodes(pruning, MIDGAME)).isLessThan(nodes(none, MIDGAME));
+    }
+
+    @Test public void aWiderMarginPrunesLess() {
+        AlphaBetaPlayerWithTT narrow = player(6);
+        AlphaBetaPlayerWithTT wide = player(6);
+        wide.setFutilityMargin(1000);
+        wide.setReverseFutilityMargin(1000);
+
+        assertThat(nodes(narrow, MIDGAME)).isLessThan(nodes(wide, MIDGAME));
+    }
+
+    @Test public void matesAreNotPrunedAway() {
+        // razoring below about 600 cp a ply misses Morphy's Ra6: the quiescence search can't see a quiet move
+        assertThat(bestMove(player(4), BACK_RANK_MATE)).isEqualTo("d1d8");
+        assertThat(bestMove(player(4), MORPHY_MATE)).isEqualTo("a1a6");
+    }
+}
@@ -0,0 +1,33 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.BACK_RANK_MATE;
+import static com.stateofflux.chess.model.player.SearchTestSupport.bestMove;
+import static com.stateofflux.chess.model.player.SearchTestSupport.player;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("UnitTest")
+public class NullMovePruningTest {
+    @Test public void nullMovePruningIsEnabledByDefault() {
+        assertThat(new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator()).isNullMovePruning()).isTrue();
+    }
+
+    @Test public void stillFindsAMate() {
+        assertThat(bestMove(player(4), BACK_RANK_MATE)).isEqualTo("d1d8");
+    }
+
+    @Test public void notTriedInAPawnEndgame() {
+        // Trébuchet: whoever has to move loses their pawn, so passing would be the best move.  With only pawns on
+        // the board no null move is tried, and the search is exactly the one without null-move pruning.
+        String fen = "8/8/8/2k5/2Pp4/3K4/8/8 b - - 0 1";
+        AlphaBetaPlayerWithTT on = player(PlayerColor.BLACK, 6);
+        AlphaBetaPlayerWithTT off = player(PlayerColor.BLACK, 6);
+        off.setNullMovePruning(false);
+
+        assertThat(bestMove(on, fen)).isEqualTo(bestMove(off, fen));
+        assertThat(on.getNodesVisited()).isEqualTo(off.getNodesVisited());
+    }
+}
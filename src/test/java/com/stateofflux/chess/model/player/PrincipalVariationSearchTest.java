@@ -0,0 +1,52 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.BACK_RANK_MATE;
+import static com.stateofflux.chess.model.player.SearchTestSupport.MORPHY_MATE;
+import static com.stateofflux.chess.model.player.SearchTestSupport.bestMove;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Principal variation search and late move reductions each have a toggle, so their effect can be measured A/B.
+ * Neither may lose a forced win, alone or together.
+ */
+@Tag("UnitTest")
+public class PrincipalVariationSearchTest {
+    private AlphaBetaPlayerWithTT player(int depth, boolean pvs, boolean lmr) {
+        AlphaBetaPlayerWithTT player = SearchTestSupport.player(depth);
+        player.setPrincipalVariationSearch(pvs);
+        player.setLateMoveReductions(lmr);
+        return player;
+    }
+
+    @Test public void bothAreEnabledByDefault() {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator());
+
+        assertThat(player.isPrincipalVariationSearch()).isTrue();
+        assertThat(player.isLateMoveReductions()).isTrue();
+    }
+
+    @Test public void aQuietMateIsNotReducedAway() {
+        // Morphy's Ra6 is quiet and doesn't give check, so it can be reduced; the null-window scout must still see
+        // that it beats alpha and search it again with the full window
+        for (boolean pvs : new boolean[] { true, false })
+            for (boolean lmr : new boolean[] { true, false }) {
+                AlphaBetaPlayerWithTT player = player(4, pvs, lmr);
+                player.getNextMove(new Game(MORPHY_MATE));
+
+                assertThat(player.getPrincipalVariation().getFirst().toLongSan())
+                    .as("pvs %s, lmr %s", pvs, lmr)
+                    .isEqualTo("a1a6");
+            }
+    }
+
+    @Test public void aMateInOneIsFoundWithEitherOff() {
+        for (boolean pvs : new boolean[] { true, false })
+            for (boolean lmr : new boolean[] { true, false })
+                assertThat(bestMove(player(4, pvs, lmr), BACK_RANK_MATE)).as("pvs %s, lmr %s", pvs, lmr).isEqualTo("d1d8");
+    }
+}
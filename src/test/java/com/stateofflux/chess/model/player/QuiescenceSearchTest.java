@@ -0,0 +1,55 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.Move;
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the quiescence search resolves captures below the horizon, so a one-ply search no
+ * longer takes a defended pawn with its queen.
+ */
+@Tag("UnitTest")
+public class QuiescenceSearchTest {
+    // Qxe5+ wins a pawn at the horizon, but dxe5 takes the queen back
+    private static final String DEFENDED_PAWN = "4k3/8/3p4/4p3/8/8/8/4Q1K1 w - - 0 1";
+
+    private static AlphaBetaPlayerWithTT player(boolean quiescence) {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator());
+        player.setSearchDepth(1);
+        player.setIncrement(TimeUnit.MINUTES.toNanos(10));
+        player.setQuiescence(quiescence);
+        return player;
+    }
+
+    @Test public void withoutQuiescenceTheQueenTakesTheDefendedPawn() {
+        AlphaBetaPlayerWithTT player = player(false);
+        Move move = player.getNextMove(new Game(DEFENDED_PAWN));
+
+        assertThat(move.toLongSan()).isEqualTo("e1e5");
+        assertThat(player.getQuiescenceNodes()).isZero();
+    }
+
+    @Test public void quiescenceSeesTheRecapture() {
+        AlphaBetaPlayerWithTT player = player(true);
+        Move move = player.getNextMove(new Game(DEFENDED_PAWN));
+
+        assertThat(move.toLongSan()).isNotEqualTo("e1e5");
+        assertThat(player.getQuiescenceNodes()).isPositive();
+        assertThat(player.getSelectiveDepth()).isGreaterThan(1);
+    }
+
+    @Test public void mateFoundInQuiescenceIsScoredAsMate() {
+        // Ra8 is mate: at depth 1 the mate is only seen because quiescence searches the evasions (there are none)
+        Game game = new Game("6k1/5ppp/8/8/8/8/8/R6K w - - 0 1");
+        AlphaBetaPlayerWithTT player = player(true);
+
+        Move move = player.getNextMove(game);
+        assertThat(move.toLongSan()).isEqualTo("a1a8");
+    }
+}
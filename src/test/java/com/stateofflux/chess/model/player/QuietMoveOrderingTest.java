@@ -0,0 +1,59 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.HistoryTable;
+import com.stateofflux.chess.model.PackedMove;
+import com.stateofflux.chess.model.PlayerColor;
+import com.stateofflux.chess.model.pieces.Piece;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.MIDGAME;
+import static com.stateofflux.chess.model.player.SearchTestSupport.bestMove;
+import static com.stateofflux.chess.model.player.SearchTestSupport.player;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Killers, counter moves and history only reorder the quiet moves, so switching them off must not change a forced
+ * result - only the number of nodes it takes to find it.
+ */
+@Tag("UnitTest")
+public class QuietMoveOrderingTest {
+    @Test public void searchResultIsUnchangedByQuietMoveOrdering() {
+        // Rxh4 is the single decisive move, so the root choice is fixed regardless of ordering.
+        String fen = "4k3/8/8/8/7q/8/8/4K2R w - - 0 1";
+        AlphaBetaPlayerWithTT off = player(4);
+        off.setQuietMoveOrdering(false);
+
+        assertThat(bestMove(player(4), fen)).isEqualTo("h1h4");
+        assertThat(bestMove(off, fen)).isEqualTo("h1h4");
+    }
+
+    @Test public void quietMoveOrderingIsEnabledByDefault() {
+        assertThat(new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator()).isQuietMoveOrdering()).isTrue();
+    }
+
+    @Test public void counterMovesAnswerTheOpponentsMoveAfterAReSearch() {
+        // PVS and LMR search some children twice.  The re-search must still see the move that led to the child,
+        // not the last move made in the subtree of the first search, or its cutoffs are filed as counters to a
+        // move by the same side.
+        AlphaBetaPlayerWithTT player = player(7);
+        player.getNextMove(new Game(MIDGAME));
+        HistoryTable history = player.getHistoryTable();
+
+        for (Piece piece : Piece.values()) {
+            if (piece.isEmpty())
+                continue;
+
+            for (int to = 0; to < 64; to++) {
+                int previousMove = PackedMove.quiet(piece.getIndex(), to == 0 ? 1 : 0, to);
+                int counter = history.counterMove(previousMove);
+
+                if (counter != PackedMove.NONE)
+                    assertThat(Piece.getPieceByIndex(PackedMove.pieceIndex(counter)).getColor())
+                        .as("counter to %s on %d", piece, to)
+                        .isNotEqualTo(piece.getColor());
+            }
+        }
+    }
+}
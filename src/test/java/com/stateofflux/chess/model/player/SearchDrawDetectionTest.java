@@ -0,0 +1,63 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PlayerColor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the search scores repetitions and the 50-move rule as draws below the root, and
+ * that the toggle turns it off.
+ */
+@Tag("UnitTest")
+public class SearchDrawDetectionTest {
+
+    private static AlphaBetaPlayerWithTT player(boolean drawDetection) {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator());
+        player.setDrawDetection(drawDetection);
+        return player;
+    }
+
+    @Test public void repeatedPositionScoresAsADraw() {
+        // white is a queen up, but the queen went out and back - the position has been seen before
+        Game game = new Game("4k3/8/8/8/8/8/8/KQ6 w - - 0 1");
+        game.move("Qb2");
+        game.move("Ke7");
+        game.move("Qb1");
+        game.move("Ke8");
+        assertThat(game.isRepeated()).isTrue();
+
+        assertThat(player(true).alphaBeta(game, 2, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 1, new ArrayList<>())).isZero();
+        assertThat(player(false).alphaBeta(game, 2, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 1, new ArrayList<>())).isPositive();
+    }
+
+    @Test public void rootIsSearchedEvenWhenRepeated() {
+        Game game = new Game("4k3/8/8/8/8/8/8/KQ6 w - - 0 1");
+        game.move("Qb2");
+        game.move("Ke7");
+        game.move("Qb1");
+        game.move("Ke8");
+
+        assertThat(player(true).alphaBeta(game, 2, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, new ArrayList<>())).isPositive();
+    }
+
+    @Test public void fiftyMoveRuleScoresAsADraw() {
+        // every white move is the 100th half move without a capture or pawn move, and none of them mates
+        Game game = new Game("8/8/8/4k3/8/8/8/KQ6 w - - 99 80");
+
+        assertThat(player(true).alphaBeta(game, 3, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, new ArrayList<>())).isZero();
+        assertThat(player(false).alphaBeta(game, 3, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, new ArrayList<>())).isPositive();
+    }
+
+    @Test public void mateOnTheHundredthHalfMoveIsStillAMate() {
+        // Ra8 mates on the 100th half move
+        Game game = new Game("6k1/5ppp/8/8/8/8/8/R6K w - - 99 80");
+
+        int score = player(true).alphaBeta(game, 2, Evaluator.MIN_VALUE, Evaluator.MAX_VALUE, 0, new ArrayList<>());
+        assertThat(score).isGreaterThanOrEqualTo(Evaluator.MATE_VALUE - 2);
+    }
+}
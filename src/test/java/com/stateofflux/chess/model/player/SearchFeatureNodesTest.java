@@ -0,0 +1,40 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.perft.PerfBaseline;
+import com.stateofflux.chess.perft.PerfBaseline.Case;
+import com.stateofflux.chess.perft.PerfBaseline.Feature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.stateofflux.chess.model.player.SearchTestSupport.nodes;
+import static com.stateofflux.chess.model.player.SearchTestSupport.player;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every switchable search feature must save nodes on the baseline positions with every other feature on - the
+ * same A/B that SearchFeatureBenchmark records, one depth shallower so it runs with the unit tests.  A feature
+ * can cost nodes on one position and still pay for itself, so the positions are totalled.
+ */
+@Tag("UnitTest")
+public class SearchFeatureNodesTest {
+    private static final int DEPTH = 6;
+
+    @Test public void everyFeatureSavesNodesWithTheOthersOn() {
+        long on = 0;
+
+        for (Case c : PerfBaseline.CASES)
+            on += nodes(player(DEPTH), c.fen());
+
+        for (Feature feature : PerfBaseline.SEARCH_FEATURES) {
+            long off = 0;
+
+            for (Case c : PerfBaseline.CASES) {
+                AlphaBetaPlayerWithTT without = player(DEPTH);
+                feature.toggle().accept(without, false);
+                off += nodes(without, c.fen());
+            }
+
+            assertThat(on).as(feature.name()).isLessThan(off);
+        }
+    }
+}
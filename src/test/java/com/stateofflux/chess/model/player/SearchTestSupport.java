@@ -0,0 +1,46 @@
+package com.stateofflux.chess.model.player;
+
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PlayerColor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Positions and a player factory shared by the tests of the individual search features.  Whether a feature saves
+ * nodes is checked once for all of them, in {@link SearchFeatureNodesTest}.
+ */
+final class SearchTestSupport {
+    private SearchTestSupport() {}
+
+    /** A quiet Queen's Gambit middlegame with every minor and major piece still on the board. */
+    static final String MIDGAME = "r1bq1rk1/pp2bppp/2n2n2/2pp4/3P4/2N1PN2/PP2BPPP/R1BQ1RK1 w - - 0 9";
+
+    /** White mates in one on the back rank with Rd8. */
+    static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1";
+
+    /** Morphy: 1. Ra6! and 2. b7# or Rxa7#.  The first move is quiet and doesn't give check. */
+    static final String MORPHY_MATE = "kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1";
+
+    /** A player with every search feature at its default, searching to a fixed depth. */
+    static AlphaBetaPlayerWithTT player(PlayerColor color, int depth) {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(color, new PestoEvaluator());
+        player.setSearchDepth(depth);
+        player.setIncrement(TimeUnit.MINUTES.toNanos(5));   // effectively no timeout for a fixed-depth search
+        return player;
+    }
+
+    static AlphaBetaPlayerWithTT player(int depth) {
+        return player(PlayerColor.WHITE, depth);
+    }
+
+    /** Searches fen and returns the main-search nodes it took. */
+    static long nodes(AlphaBetaPlayerWithTT player, String fen) {
+        player.getNextMove(new Game(fen));
+        return player.getNodesVisited();
+    }
+
+    /** Searches fen and returns the chosen move in long algebraic notation. */
+    static String bestMove(AlphaBetaPlayerWithTT player, String fen) {
+        return player.getNextMove(new Game(fen)).toLongSan();
+    }
+}
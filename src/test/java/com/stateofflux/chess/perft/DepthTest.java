@@ -2,6 +2,7 @@ package com.stateofflux.chess.perft;
 
 import com.stateofflux.chess.model.FenString;
 import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PerftTable;
 
 import one.profiler.AsyncProfiler;
 import one.profiler.Events;
@@ -162,6 +163,33 @@ public class DepthTest {
         depthHelper(5, perftRecords);
     }
 
+    // the legal move generator and the make/undo filter it replaced must agree move for move
+    @Test public void legalGeneratorMatchesMakeUndoFilterToDepthOfThree() {
+        for(PerftRecord pr : perftRecords) {
+            Game legal = new Game(pr.FenString());
+            Game filtered = new Game(pr.FenString());
+            filtered.setLegalMoveGenerator(false);
+
+            SortedMap<String, Long> expected = filtered.perftAtRoot(3);
+
+            assertThat(legal.perftAtRoot(3)).as("FenString '%s'", pr.FenString()).isEqualTo(expected);
+            assertThat(expected.values().stream().reduce(0L, Long::sum)).isEqualTo(pr.d3());
+        }
+    }
+
+    // a small table so entries are overwritten and the lossy path is exercised too
+    @Test public void hashedPerftMatchesEveryEpdExampleToDepthOfFive() {
+        PerftTable table = new PerftTable(1);
+
+        for(PerftRecord pr : perftRecords) {
+            Game game = new Game(pr.FenString());
+            game.setPerftTable(table);
+
+            assertThat(game.perft(4)).as("FenString '%s' of depth 4", pr.FenString()).isEqualTo(pr.d4());
+            assertThat(game.perft(5)).as("FenString '%s' of depth 5", pr.FenString()).isEqualTo(pr.d5());
+        }
+    }
+
     // about 2 seconds
     @Test public void startingPositionDepthFour() throws InvocationTargetException, NoSuchMethodException, IllegalAccessException, IOException {
         depthHelper(4, defaultBoard());
@@ -0,0 +1,82 @@
+package com.stateofflux.chess.perft;
+
+import ch.qos.logback.classic.Level;
+import com.stateofflux.chess.model.Game;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cost of handing a position to another thread: Game.fork() against the FEN round trip it replaced
+ * (new Game(game.asFen())).  The game has 40 plies of history, which fork() copies and the FEN loses.  Rounds
+ * alternate between the two and the best round of each is reported.
+ *
+ * Run with: mvn test -Dtest.groups=PerformanceTest -Dtest=GameForkBenchmark -Djacoco.skip=true
+ */
+@Tag("PerformanceTest")
+public class GameForkBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int ROUNDS = 10;
+    private static final int COPIES = 100_000;
+
+    @BeforeAll
+    public static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    @Test public void compareForkWithFen() {
+        Game game = new Game("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        for (int i = 0; i < 10; i++) {
+            game.move("Kf1");
+            game.move("Kf8");
+            game.move("Ke1");
+            game.move("Ke8");
+        }
+
+        long bestFork = Long.MAX_VALUE;
+        long bestFen = Long.MAX_VALUE;
+        long forkSum = 0;
+        long fenSum = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            forkSum = fork(game);
+            bestFork = Math.min(bestFork, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            fenSum = fen(game);
+            bestFen = Math.min(bestFen, System.nanoTime() - start);
+        }
+
+        assertThat(forkSum).as("both copies have the same zobrist key").isEqualTo(fenSum);
+
+        logger.atWarn().log(String.format("%-20s %10s", "copy", "ns/copy"));
+        logger.atWarn().log(String.format("%-20s %10.0f", "Game.fork()", (double) bestFork / COPIES));
+        logger.atWarn().log(String.format("%-20s %10.0f", "new Game(asFen())", (double) bestFen / COPIES));
+    }
+
+    private static long fork(Game game) {
+        long sum = 0;
+
+        for (int i = 0; i < COPIES; i++)
+            sum += game.fork().getZobristKey();
+
+        return sum;
+    }
+
+    private static long fen(Game game) {
+        long sum = 0;
+
+        for (int i = 0; i < COPIES; i++)
+            sum += new Game(game.asFen()).getZobristKey();
+
+        return sum;
+    }
+}
@@ -1,6 +1,7 @@
 package com.stateofflux.chess.perft;
 
 import com.stateofflux.chess.model.FenString;
+import com.stateofflux.chess.model.player.AlphaBetaPlayerWithTT;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -9,6 +10,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * Shared definitions for the performance baseline: the position suite, the file locations, and a
@@ -25,14 +27,32 @@ public final class PerfBaseline {
     /** A row of the committed baseline. */
     public record Baseline(int depth, long nodesOn, long nodesOff) {}
 
+    /** A search feature that can be switched off for an A/B run; toggle sets it on the player. */
+    public record Feature(String name, BiConsumer<AlphaBetaPlayerWithTT, Boolean> toggle) {}
+
     public static final Path BASELINE = Path.of("perf-results", "baseline.csv");
     public static final Path HISTORY = Path.of("perf-results", "history.csv");
+    public static final Path FEATURES = Path.of("perf-results", "features.csv");
+
+    /** The features {@link SearchFeatureBenchmark} measures, each against the search with everything else on. */
+    public static final List<Feature> SEARCH_FEATURES = List.of(
+        new Feature("hash-move", AlphaBetaPlayerWithTT::setHashMoveOrdering),
+        new Feature("quiet-ordering", AlphaBetaPlayerWithTT::setQuietMoveOrdering),
+        new Feature("null-move", AlphaBetaPlayerWithTT::setNullMovePruning),
+        new Feature("pvs", AlphaBetaPlayerWithTT::setPrincipalVariationSearch),
+        new Feature("lmr", AlphaBetaPlayerWithTT::setLateMoveReductions),
+        new Feature("aspiration", AlphaBetaPlayerWithTT::setAspirationWindows),
+        new Feature("reverse-futility", AlphaBetaPlayerWithTT::setReverseFutilityPruning),
+        new Feature("razoring", AlphaBetaPlayerWithTT::setRazoring),
+        new Feature("futility", AlphaBetaPlayerWithTT::setFutilityPruning),
+        new Feature("late-move-pruning", AlphaBetaPlayerWithTT::setLateMovePruning)
+    );
 
     public static final List<Case> CASES = List.of(
-        new Case("startpos", FenString.INITIAL_BOARD, 5),
-        new Case("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 5),
-        new Case("midgame",  "r1bq1rk1/pp2bppp/2n2n2/2pp4/3P4/2N1PN2/PP2BPPP/R1BQ1RK1 w - - 0 9", 5),
-        new Case("endgame",  "8/2k5/3p4/p2P1p2/P2P1P2/8/8/3K4 w - - 0 1", 5)
+        new Case("startpos", FenString.INITIAL_BOARD, 7),
+        new Case("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 7),
+        new Case("midgame",  "r1bq1rk1/pp2bppp/2n2n2/2pp4/3P4/2N1PN2/PP2BPPP/R1BQ1RK1 w - - 0 9", 7),
+        new Case("endgame",  "8/2k5/3p4/p2P1p2/P2P1P2/8/8/3K4 w - - 0 1", 7)
     );
 
     /** Reads the committed baseline keyed by position name. Empty map if the file is absent. */
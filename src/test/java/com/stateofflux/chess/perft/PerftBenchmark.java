@@ -3,6 +3,9 @@ package com.stateofflux.chess.perft;
 import ch.qos.logback.classic.Level;
 import com.stateofflux.chess.model.FenString;
 import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.ParallelPerft;
+import com.stateofflux.chess.model.PerftTable;
+import com.stateofflux.chess.model.pieces.StraightLineMoves;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,9 @@ import static org.assertj.core.api.Assertions.assertThat;
  * perf-results/perft-bench.json (github-action-benchmark "customBiggerIsBetter" format) and tracked
  * over time by CI, which alerts on a large regression.
  *
+ * It also runs the first case with ParallelPerft on 1, 2, 4 ... threads up to the core count, and reports the
+ * speed-up over a single thread, and times the start position at depths 6 and 7 with a PerftTable.
+ *
  * Run with: mvn test -Dtest.groups=PerformanceTest -Dtest=PerftBenchmark -Djacoco.skip=true
  */
 @Tag("PerformanceTest")
@@ -44,6 +50,14 @@ public class PerftBenchmark {
         new Case("kiwipete d4", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4_085_603L)
     );
 
+    private record HashedCase(int depth, long expectedNodes) {}
+
+    private static final int HASH_MB = 256;
+    private static final List<HashedCase> HASHED_CASES = List.of(
+        new HashedCase(6, 119_060_324L),
+        new HashedCase(7, 3_195_901_860L)
+    );
+
     @BeforeAll
     public static void quietLogs() {
         ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
@@ -53,6 +67,7 @@ public class PerftBenchmark {
         // Warm up the JIT before timing anything.
         new Game(FenString.INITIAL_BOARD).perft(4);
 
+        logger.atWarn().log("slider backend: {}", StraightLineMoves.BACKEND);
         logger.atWarn().log(String.format("%-14s %12s %8s %14s", "position", "nodes", "ms", "nodes/sec"));
         List<String> metrics = new ArrayList<>();
 
@@ -69,9 +84,81 @@ public class PerftBenchmark {
                 "  {\"name\": \"perft %s\", \"unit\": \"nodes/sec\", \"value\": %d}", c.name(), nps));
         }
 
+        metrics.addAll(measureScaling());
+        metrics.addAll(measureHashing());
         writeJson(metrics);
     }
 
+    /*
+     * Parallel perft from 1 thread up to every core (doubling, plus the core count itself), reporting nodes/second
+     * and the speed-up over one thread.
+     */
+    private List<String> measureScaling() {
+        Case c = CASES.getFirst();
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<String> metrics = new ArrayList<>();
+        long singleThreadNps = 0;
+
+        logger.atWarn().log(String.format("%-14s %8s %12s %8s %14s %8s", "position", "threads", "nodes", "ms", "nodes/sec", "speedup"));
+
+        for (int threads = 1; threads <= cores; threads = threads == cores ? cores + 1 : Math.min(threads * 2, cores)) {
+            long start = System.nanoTime();
+            long nodes = new ParallelPerft(threads).perft(new Game(c.fen()), c.depth());
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            assertThat(nodes).as("parallel perft %s on %d threads", c.name(), threads).isEqualTo(c.expectedNodes());
+
+            long nps = nodes * 1000 / millis;
+            if (threads == 1)
+                singleThreadNps = nps;
+
+            logger.atWarn().log(String.format("%-14s %8d %12d %8d %14d %8.2f", c.name(), threads, nodes, millis, nps, (double) nps / singleThreadNps));
+            metrics.add(String.format(
+                "  {\"name\": \"parallel perft %s, %d threads\", \"unit\": \"nodes/sec\", \"value\": %d}", c.name(), threads, nps));
+        }
+
+        return metrics;
+    }
+
+    /*
+     * Perft with a PerftTable at depths 6 and 7 from the start position.  Depth 6 is also counted without the table;
+     * depth 7 (3.2 billion nodes) is too slow for that, so its speed-up is against the unhashed depth 6 rate.  Hashed
+     * nodes/second counts the nodes the cache answered for, not the nodes visited.
+     */
+    private List<String> measureHashing() {
+        List<String> metrics = new ArrayList<>();
+
+        long start = System.nanoTime();
+        long nodes = new Game(FenString.INITIAL_BOARD).perft(6);
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertThat(nodes).as("perft startpos d6").isEqualTo(119_060_324L);
+        long unhashedNps = nodes * 1000 / millis;
+
+        logger.atWarn().log(String.format("%-14s %8s %14s %8s %14s %8s", "position", "table", "nodes", "ms", "nodes/sec", "speedup"));
+        logger.atWarn().log(String.format("%-14s %8s %14d %8d %14d %8.2f", "startpos d6", "none", nodes, millis, unhashedNps, 1.0));
+        metrics.add(String.format(
+            "  {\"name\": \"perft startpos d6\", \"unit\": \"nodes/sec\", \"value\": %d}", unhashedNps));
+
+        for (HashedCase c : HASHED_CASES) {
+            Game game = new Game(FenString.INITIAL_BOARD);
+            game.setPerftTable(new PerftTable(HASH_MB));
+
+            start = System.nanoTime();
+            nodes = game.perft(c.depth());
+            millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            assertThat(nodes).as("hashed perft startpos d%d", c.depth()).isEqualTo(c.expectedNodes());
+
+            long nps = nodes * 1000 / millis;
+            logger.atWarn().log(String.format("%-14s %8s %14d %8d %14d %8.2f", "startpos d" + c.depth(), HASH_MB + " MB", nodes, millis, nps, (double) nps / unhashedNps));
+            metrics.add(String.format(
+                "  {\"name\": \"hashed perft startpos d%d\", \"unit\": \"nodes/sec\", \"value\": %d}", c.depth(), nps));
+        }
+
+        return metrics;
+    }
+
     private void writeJson(List<String> metrics) throws IOException {
         StringJoiner json = new StringJoiner(",\n", "[\n", "\n]\n");
         metrics.forEach(json::add);
@@ -0,0 +1,91 @@
+package com.stateofflux.chess.perft;
+
+import ch.qos.logback.classic.Level;
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.PlayerColor;
+import com.stateofflux.chess.model.player.AlphaBetaPlayerWithTT;
+import com.stateofflux.chess.model.player.PestoEvaluator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static com.stateofflux.chess.perft.PerfBaseline.CASES;
+import static com.stateofflux.chess.perft.PerfBaseline.Case;
+import static com.stateofflux.chess.perft.PerfBaseline.FEATURES;
+import static com.stateofflux.chess.perft.PerfBaseline.Feature;
+import static com.stateofflux.chess.perft.PerfBaseline.SEARCH_FEATURES;
+
+/**
+ * A/B measurement of each search feature in {@link PerfBaseline#SEARCH_FEATURES}: every baseline position is
+ * searched to its fixed depth with the feature on and off, everything else on, in one process.  Node counts are
+ * deterministic, so re-running on unchanged code reproduces the file exactly; the times are logged only.
+ *
+ *   - overwrites perf-results/features.csv  (committed: feature,position,depth,nodes_on,nodes_off)
+ *
+ * Run with: mvn test -Dtest.groups=PerformanceTest -Dtest=SearchFeatureBenchmark -Djacoco.skip=true
+ */
+@Tag("PerformanceTest")
+public class SearchFeatureBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    @BeforeAll
+    public static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    @Test public void recordFeatures() throws IOException {
+        logger.atWarn().log("Search features A/B  (sha {}, jdk {})", PerfBaseline.gitSha(), System.getProperty("java.version"));
+        logger.atWarn().log(String.format("%-16s %-10s %5s %12s %12s %8s %8s %8s",
+            "feature", "position", "depth", "nodes(on)", "nodes(off)", "saved", "ms(on)", "ms(off)"));
+
+        StringBuilder rows = new StringBuilder("feature,position,depth,nodes_on,nodes_off\n");
+
+        for (Feature feature : SEARCH_FEATURES) {
+            long totalOn = 0;
+            long totalOff = 0;
+
+            for (Case c : CASES) {
+                Result off = search(c, feature, false);
+                Result on = search(c, feature, true);
+                totalOn += on.nodes;
+                totalOff += off.nodes;
+
+                logger.atWarn().log(String.format("%-16s %-10s %5d %12d %12d %7.1f%% %8d %8d",
+                    feature.name(), c.name(), c.depth(), on.nodes, off.nodes, saved(on.nodes, off.nodes), on.millis, off.millis));
+                rows.append(String.join(",", feature.name(), c.name(), String.valueOf(c.depth()),
+                    String.valueOf(on.nodes), String.valueOf(off.nodes))).append('\n');
+            }
+
+            logger.atWarn().log(String.format("%-16s %-10s %5s %12d %12d %7.1f%%",
+                feature.name(), "TOTAL", "", totalOn, totalOff, saved(totalOn, totalOff)));
+        }
+
+        Files.createDirectories(FEATURES.getParent());
+        Files.writeString(FEATURES, rows.toString());   // overwrite: deterministic, no churn on unchanged code
+    }
+
+    private record Result(long nodes, long millis) {}
+
+    private static double saved(long on, long off) {
+        return off == 0 ? 0 : (100.0 * (off - on) / off);
+    }
+
+    private Result search(Case c, Feature feature, boolean enabled) {
+        AlphaBetaPlayerWithTT player = new AlphaBetaPlayerWithTT(PlayerColor.WHITE, new PestoEvaluator());
+        player.setSearchDepth(c.depth());
+        player.setIncrement(TimeUnit.MINUTES.toNanos(10));   // no timeout: fixed-depth, deterministic
+        feature.toggle().accept(player, enabled);
+
+        long start = System.nanoTime();
+        player.getNextMove(new Game(c.fen()));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(player.getNodesVisited(), millis);
+    }
+}
@@ -0,0 +1,99 @@
+package com.stateofflux.chess.perft;
+
+import ch.qos.logback.classic.Level;
+import com.stateofflux.chess.model.pieces.SliderBackend;
+import com.stateofflux.chess.model.pieces.StraightLineMoves;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slider lookup throughput and table size for the magic and PEXT backends, measured in one JVM so the comparison
+ * isn't skewed by JIT or machine differences between runs.  Rounds alternate between the backends and the best
+ * round of each is reported.  MagicGenerator reports the sizes of the tables for the magics it finds.
+ *
+ * For the end-to-end effect, run PerftBenchmark with each backend forced:
+ *   mvn test -Dtest.groups=PerformanceTest -Dtest=PerftBenchmark -Djacoco.skip=true -Dchess.sliders=magic
+ *   mvn test -Dtest.groups=PerformanceTest -Dtest=PerftBenchmark -Djacoco.skip=true -Dchess.sliders=pext
+ *
+ * Run with: mvn test -Dtest.groups=PerformanceTest -Dtest=SliderBackendBenchmark -Djacoco.skip=true
+ */
+@Tag("PerformanceTest")
+public class SliderBackendBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int OCCUPANCIES = 4096;
+    private static final int ROUNDS = 10;
+    private static final int PASSES = 20;
+
+    @BeforeAll
+    public static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    @Test public void compareBackends() {
+        Random random = new Random(42L);
+        long[] occupancies = new long[OCCUPANCIES];
+        for (int i = 0; i < occupancies.length; i++)
+            occupancies[i] = random.nextLong() & random.nextLong();
+
+        long bestMagic = Long.MAX_VALUE;
+        long bestPext = Long.MAX_VALUE;
+        long magicSum = 0;
+        long pextSum = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            magicSum = magic(occupancies);
+            bestMagic = Math.min(bestMagic, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            pextSum = pext(occupancies);
+            bestPext = Math.min(bestPext, System.nanoTime() - start);
+        }
+
+        assertThat(pextSum).as("both backends return the same attacks").isEqualTo(magicSum);
+
+        double lookups = (double) PASSES * OCCUPANCIES * 64 * 2;
+        logger.atWarn().log(String.format("%-8s %10s %10s", "backend", "ns/lookup", "table KiB"));
+        logger.atWarn().log(String.format("%-8s %10.2f %10d", "magic", bestMagic / lookups,
+            StraightLineMoves.tableBytes(SliderBackend.MAGIC) / 1024));
+        logger.atWarn().log(String.format("%-8s %10.2f %10d", "pext", bestPext / lookups,
+            StraightLineMoves.tableBytes(SliderBackend.PEXT) / 1024));
+        logger.atWarn().log("selected backend on this machine: {} (override with -D{}=magic|pext)",
+            StraightLineMoves.BACKEND, SliderBackend.PROPERTY);
+    }
+
+    private static long magic(long[] occupancies) {
+        long sum = 0;
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (long occupied : occupancies) {
+                for (int square = 0; square < 64; square++)
+                    sum += StraightLineMoves.getRookAttacksMagic(square, occupied) ^ StraightLineMoves.getBishopAttacksMagic(square, occupied);
+            }
+        }
+
+        return sum;
+    }
+
+    private static long pext(long[] occupancies) {
+        long sum = 0;
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (long occupied : occupancies) {
+                for (int square = 0; square < 64; square++)
+                    sum += StraightLineMoves.getRookAttacksPext(square, occupied) ^ StraightLineMoves.getBishopAttacksPext(square, occupied);
+            }
+        }
+
+        return sum;
+    }
+}
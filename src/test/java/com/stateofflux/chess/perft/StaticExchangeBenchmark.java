@@ -0,0 +1,79 @@
+package com.stateofflux.chess.perft;
+
+import ch.qos.logback.classic.Level;
+import com.stateofflux.chess.model.Board;
+import com.stateofflux.chess.model.Game;
+import com.stateofflux.chess.model.MoveBuffer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The cost of static exchange evaluation (ns/call): the full swap list (Board.see) against the threshold test
+ * (Board.seeGe) the move picker uses to find losing captures.  Every capture and promotion in a handful of tactical
+ * positions is evaluated; the best of several rounds is reported.
+ *
+ * Run with: mvn test -Dtest.groups=PerformanceTest -Dtest=StaticExchangeBenchmark -Djacoco.skip=true
+ */
+@Tag("PerformanceTest")
+public class StaticExchangeBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int ROUNDS = 10;
+    private static final int REPEATS = 200_000;
+    private static final String[] FENS = {
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1",
+        "r1bq1rk1/pp2bppp/2n1pn2/2pp4/2PP4/2N1PN2/PP2BPPP/R1BQ1RK1 w - - 0 8"
+    };
+
+    @BeforeAll
+    public static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    @Test public void measureSee() {
+        Board[] boards = new Board[FENS.length];
+        MoveBuffer[] captures = new MoveBuffer[FENS.length];
+        int calls = 0;
+
+        for (int i = 0; i < FENS.length; i++) {
+            Game game = new Game(FENS[i]);
+            boards[i] = game.getBoard();
+            captures[i] = new MoveBuffer();
+            game.generateMoves(captures[i], Board.NOISY_MOVES);
+            calls += captures[i].size();
+        }
+
+        long bestSee = Long.MAX_VALUE;
+        long bestSeeGe = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < REPEATS; r++)
+                for (int i = 0; i < boards.length; i++)
+                    for (int m = 0; m < captures[i].size(); m++)
+                        sink += boards[i].see(captures[i].get(m));
+            bestSee = Math.min(bestSee, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < REPEATS; r++)
+                for (int i = 0; i < boards.length; i++)
+                    for (int m = 0; m < captures[i].size(); m++)
+                        sink += boards[i].seeGe(captures[i].get(m), 0) ? 1 : 0;
+            bestSeeGe = Math.min(bestSeeGe, System.nanoTime() - start);
+        }
+
+        long total = (long) calls * REPEATS;
+        logger.atWarn().log(String.format("%d captures and promotions (checksum %d)", calls, sink));
+        logger.atWarn().log(String.format("%-12s %10s", "call", "ns/call"));
+        logger.atWarn().log(String.format("%-12s %10.1f", "see", (double) bestSee / total));
+        logger.atWarn().log(String.format("%-12s %10.1f", "seeGe(0)", (double) bestSeeGe / total));
+    }
+}